@@ -0,0 +1,73 @@
+package com.epathshala.config;
+
+import com.epathshala.service.AttendanceSummaryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Makes sure attendance is keyed on (student_id, date) before the application
+ * serves requests. ddl-auto only logs when it cannot add uk_attendance_student_date
+ * (e.g. duplicate rows already exist), and the attendance upserts would then insert
+ * duplicates. Duplicates are removed, keeping the latest row of each student and day,
+ * the key is added, and startup fails if it still cannot be created.
+ */
+@Component
+public class AttendanceKeyMigration {
+
+    private static final String KEY_NAME = "uk_attendance_student_date";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Schema update has run once the EntityManagerFactory exists
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AttendanceSummaryService attendanceSummaryService;
+
+    @Value("${attendance.migration.dedupe:true}")
+    private boolean dedupe;
+
+    @PostConstruct
+    public void migrate() {
+        if (keyExists()) {
+            return;
+        }
+
+        int removed = 0;
+        if (dedupe) {
+            removed = jdbcTemplate.update(
+                "DELETE a FROM attendance a JOIN attendance b " +
+                "ON a.student_id = b.student_id AND a.date = b.date AND a.id < b.id");
+            if (removed > 0) {
+                System.out.println("🧹 Removed " + removed + " duplicate attendance rows");
+            }
+        }
+
+        try {
+            jdbcTemplate.execute("ALTER TABLE attendance ADD CONSTRAINT " + KEY_NAME + " UNIQUE (student_id, date)");
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot add " + KEY_NAME + " to attendance; remove duplicate (student_id, date) rows"
+                + (dedupe ? "" : " or set attendance.migration.dedupe=true") + ": " + e.getMessage(), e);
+        }
+        System.out.println("🔧 Added unique key " + KEY_NAME + " to attendance");
+
+        // The rollup was counted from the duplicates; recount it from the cleaned table
+        if (removed > 0) {
+            attendanceSummaryService.rebuildAll();
+        }
+    }
+
+    private boolean keyExists() {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() " +
+            "AND table_name = 'attendance' AND index_name = ?", Integer.class, KEY_NAME);
+        return count != null && count > 0;
+    }
+}
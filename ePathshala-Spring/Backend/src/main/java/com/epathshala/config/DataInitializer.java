@@ -65,10 +65,19 @@ public class DataInitializer implements CommandLineRunner {
     
     @Autowired
     private ForumReplyRepository forumReplyRepository;
+    
+    @Autowired
+    private ExamAnswerRepository examAnswerRepository;
+    
+    @Autowired
+    private ExamQuestionRepository examQuestionRepository;
 
     @Override
     @Transactional
     public void run(String... args) throws Exception {
+        examAnswerRepository.alignIdSequence();
+        examQuestionRepository.alignIdSequence();
+        
         // Only initialize if no data exists
         if (userRepository.count() == 0) {
             System.out.println("🚀 Initializing sample data...");
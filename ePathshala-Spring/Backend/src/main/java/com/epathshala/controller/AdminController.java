@@ -1,11 +1,15 @@
 package com.epathshala.controller;
 
+import com.epathshala.dto.BulkDeactivateDTO;
 import com.epathshala.dto.UserDTO;
 import com.epathshala.service.AdminService;
+import com.epathshala.service.DataRetentionService;
 import com.epathshala.service.OnlineClassService;
+import com.epathshala.service.UserImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -15,8 +19,10 @@ import com.epathshala.entity.ExamQuestion;
 import com.epathshala.repository.ExamQuestionRepository;
 import com.epathshala.repository.ExamRepository;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -29,6 +35,12 @@ public class AdminController {
     @Autowired
     private OnlineClassService onlineClassService;
 
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private DataRetentionService dataRetentionService;
+
     @Autowired
     private ExamRepository examRepository;
 
@@ -71,6 +83,33 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getAllParents());
     }
 
+    @GetMapping("/students/page")
+    @Operation(summary = "Get Students Page", description = "Page through students in id order; pass the returned nextCursor as 'after' for the next page")
+    public ResponseEntity<?> getStudentPage(@RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String className,
+                                            @RequestParam(required = false) String namePrefix) {
+        return ResponseEntity.ok(adminService.getStudentPage(after, limit, className, namePrefix));
+    }
+
+    @GetMapping("/teachers/page")
+    @Operation(summary = "Get Teachers Page", description = "Page through teachers in id order; className filters on the assigned class")
+    public ResponseEntity<?> getTeacherPage(@RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String className,
+                                            @RequestParam(required = false) String namePrefix) {
+        return ResponseEntity.ok(adminService.getTeacherPage(after, limit, className, namePrefix));
+    }
+
+    @GetMapping("/parents/page")
+    @Operation(summary = "Get Parents Page", description = "Page through parents in id order; className keeps parents with a child in that class")
+    public ResponseEntity<?> getParentPage(@RequestParam(required = false) Long after,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) String className,
+                                           @RequestParam(required = false) String namePrefix) {
+        return ResponseEntity.ok(adminService.getParentPage(after, limit, className, namePrefix));
+    }
+
     @DeleteMapping("/user/{id}")
     @Operation(summary = "Delete User", description = "Delete a user account by ID")
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
@@ -78,6 +117,54 @@ public class AdminController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/users/deactivate")
+    @Operation(summary = "Bulk Deactivate Users", description = "Deactivate users by id and/or every student of a class (optionally with their parents), in batches")
+    public ResponseEntity<?> deactivateUsers(@RequestBody BulkDeactivateDTO dto) {
+        return ResponseEntity.ok(adminService.deactivateUsers(dto));
+    }
+
+    @PostMapping(value = "/users/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    @Operation(summary = "Import Users", description = "Stream a roster CSV (role,name,email,password,studentClass,parentEmail,subject,assignedClass); accounts are created by a background job")
+    public ResponseEntity<?> importUsers(HttpServletRequest request) {
+        try {
+            return ResponseEntity.accepted().body(userImportService.startImport(request.getInputStream()));
+        } catch (Exception e) {
+            System.err.println("Error in importUsers: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @GetMapping("/users/import/{jobId}")
+    @Operation(summary = "Get User Import Status", description = "Progress and rejected rows of a user import job")
+    public ResponseEntity<?> getImportStatus(@PathVariable String jobId) {
+        Map<String, Object> job = userImportService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    @GetMapping("/retention")
+    @Operation(summary = "Get Retention Stats", description = "Session/OTP retention settings, rows processed by the last run and since startup")
+    public ResponseEntity<?> getRetentionStats() {
+        return ResponseEntity.ok(dataRetentionService.getStats());
+    }
+
+    @PostMapping("/retention/run")
+    @Operation(summary = "Run Retention", description = "Start archiving or deleting closed sessions and used/expired OTPs past the retention horizon; poll GET /retention for progress")
+    public ResponseEntity<?> runRetention() {
+        try {
+            Map<String, Object> state = dataRetentionService.startRetention();
+            if (state == null) {
+                return ResponseEntity.status(409).body(Map.of("error", "A retention run is already in progress"));
+            }
+            return ResponseEntity.accepted().body(state);
+        } catch (Exception e) {
+            System.err.println("Error in runRetention: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
     @PostMapping("/assign-teacher")
     @Operation(summary = "Assign Teacher", description = "Assign a teacher to a class")
     public ResponseEntity<?> assignTeacher(@RequestBody UserDTO dto) {
@@ -3,14 +3,21 @@ package com.epathshala.controller;
 import com.epathshala.dto.ExamDTO;
 import com.epathshala.dto.ExamQuestionDTO;
 import com.epathshala.dto.ExamResultDTO;
+import com.epathshala.service.ExamAnalyticsService;
+import com.epathshala.service.ExamQuestionImportService;
+import com.epathshala.service.ExamResultExportService;
 import com.epathshala.service.ExamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +33,15 @@ public class FacultyExamController {
     @Autowired
     private ExamService examService;
     
+    @Autowired
+    private ExamAnalyticsService examAnalyticsService;
+    
+    @Autowired
+    private ExamResultExportService examResultExportService;
+    
+    @Autowired
+    private ExamQuestionImportService examQuestionImportService;
+    
     @Autowired
     private UserRepository userRepository;
     
@@ -62,6 +78,26 @@ public class FacultyExamController {
         }
     }
     
+    @PostMapping(value = "/{examId}/questions/import",
+            consumes = {"text/csv", "application/x-ndjson", "application/jsonl", MediaType.TEXT_PLAIN_VALUE})
+    @Operation(summary = "Import Questions", description = "Stream a question bank (CSV with a header row, or JSON lines) into an exam; invalid rows are reported and skipped")
+    public ResponseEntity<Map<String, Object>> importQuestions(
+            @PathVariable Long examId,
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) {
+        try {
+            if (format == null) {
+                String contentType = request.getContentType();
+                boolean jsonLines = contentType != null && (contentType.contains("ndjson") || contentType.contains("jsonl"));
+                format = jsonLines ? "ndjson" : "csv";
+            }
+            return ResponseEntity.ok(examQuestionImportService.importQuestions(examId, format, request.getInputStream()));
+        } catch (Exception e) {
+            System.err.println("Error in importQuestions: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+    
     @GetMapping
     @Operation(summary = "Get Faculty Exams", description = "Get all exams created by the faculty")
     public ResponseEntity<List<ExamDTO>> getFacultyExams() {
@@ -104,6 +140,44 @@ public class FacultyExamController {
         }
     }
     
+    @GetMapping("/{examId}/results/export")
+    @Operation(summary = "Export Exam Results", description = "Stream all results of an exam as CSV (default) or NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportExamResults(
+            @PathVariable Long examId,
+            @RequestParam(defaultValue = "csv") String format) {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        StreamingResponseBody body = outputStream -> examResultExportService.exportResults(examId, format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ndjson ? "application/x-ndjson" : "text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"exam-" + examId + "-results." + (ndjson ? "ndjson" : "csv") + "\"")
+                .body(body);
+    }
+    
+    @GetMapping("/{examId}/analytics")
+    @Operation(summary = "Get Exam Analytics", description = "Attempt count, mean, standard deviation and score histogram for an exam")
+    public ResponseEntity<Map<String, Object>> getExamAnalytics(@PathVariable Long examId) {
+        try {
+            return ResponseEntity.ok(examAnalyticsService.getExamSummary(examId));
+        } catch (Exception e) {
+            System.err.println("Error in getExamAnalytics: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    @GetMapping("/{examId}/analytics/questions")
+    @Operation(summary = "Get Question Analytics", description = "Per-question difficulty, discrimination index and option selection counts")
+    public ResponseEntity<List<Map<String, Object>>> getQuestionAnalytics(@PathVariable Long examId) {
+        try {
+            return ResponseEntity.ok(examAnalyticsService.getQuestionStatistics(examId));
+        } catch (Exception e) {
+            System.err.println("Error in getQuestionAnalytics: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     @PutMapping("/{examId}/activate")
     @Operation(summary = "Activate Exam", description = "Activate an exam to make it available to students")
     public ResponseEntity<ExamDTO> activateExam(@PathVariable Long examId) {
@@ -16,6 +16,17 @@ public class ParentController {
     @Autowired
     private ParentService parentService;
 
+    @GetMapping("/dashboard/{userId}")
+    public ResponseEntity<?> getDashboard(@PathVariable Long userId) {
+        try {
+            return ResponseEntity.ok(parentService.getDashboard(userId));
+        } catch (Exception e) {
+            System.out.println("Error in getDashboard controller: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error fetching dashboard"));
+        }
+    }
+
     @GetMapping("/attendance/{userId}")
     public ResponseEntity<?> getChildAttendance(@PathVariable Long userId) {
         try {
@@ -2,6 +2,7 @@ package com.epathshala.controller;
 
 import com.epathshala.entity.User;
 import com.epathshala.repository.UserRepository;
+import com.epathshala.security.PrincipalCache;
 import com.epathshala.util.PasswordUtility;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -26,6 +27,9 @@ public class PasswordController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @GetMapping("/verify-sample-passwords")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Verify sample passwords against database hashes", 
@@ -190,6 +194,7 @@ public class PasswordController {
             String hashed = passwordUtility.encodePassword(newPassword);
             user.setPassword(hashed);
             userRepository.save(user);
+            principalCache.revoke(user.getEmail());
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Password reset successfully");
@@ -3,13 +3,13 @@ package com.epathshala.controller;
 import com.epathshala.service.StudentService;
 import com.epathshala.repository.StudentRepository;
 import com.epathshala.entity.Student;
-import com.epathshala.entity.User;
 import com.epathshala.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import com.epathshala.dto.LeaveRequestDTO;
+import com.epathshala.dto.StudentDashboardDTO;
 
 import java.util.Map;
 import java.util.List;
@@ -66,16 +66,7 @@ public class StudentController {
 
     @GetMapping("/details/{userId}")
     public ResponseEntity<?> getStudentDetails(@PathVariable Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null) {
-            return ResponseEntity.notFound().build();
-        }
-        
-        Student student = studentRepository.findAll().stream()
-            .filter(s -> s.getUser().getId().equals(userId))
-            .findFirst()
-            .orElse(null);
-            
+        Student student = studentRepository.findByUser_Id(userId).orElse(null);
         if (student == null) {
             return ResponseEntity.notFound().build();
         }
@@ -89,6 +80,15 @@ public class StudentController {
         ));
     }
 
+    @GetMapping("/dashboard/{userId}")
+    public ResponseEntity<?> getDashboard(@PathVariable Long userId) {
+        StudentDashboardDTO dashboard = studentService.getDashboard(userId);
+        if (dashboard == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(dashboard);
+    }
+
     @GetMapping("/attendance/{userId}")
     public ResponseEntity<?> getAttendance(@PathVariable Long userId) {
         return ResponseEntity.ok(studentService.getAttendance(userId));
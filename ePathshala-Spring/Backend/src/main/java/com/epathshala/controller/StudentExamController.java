@@ -2,10 +2,15 @@ package com.epathshala.controller;
 
 import com.epathshala.dto.ExamDTO;
 import com.epathshala.dto.ExamResultDTO;
+import com.epathshala.entity.ExamSubmission;
+import com.epathshala.service.ExamAutosaveService;
 import com.epathshala.service.ExamService;
+import com.epathshala.service.ExamSubmissionQueueService;
+import com.epathshala.service.StudentIdCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,8 +21,6 @@ import java.util.List;
 import java.util.Map;
 import com.epathshala.repository.UserRepository;
 import com.epathshala.entity.User;
-import com.epathshala.repository.StudentRepository;
-import com.epathshala.entity.Student;
 import java.util.ArrayList;
 
 @RestController
@@ -33,7 +36,17 @@ public class StudentExamController {
     private UserRepository userRepository;
 
     @Autowired
-    private StudentRepository studentRepository;
+    private StudentIdCache studentIdCache;
+    
+    @Autowired
+    private ExamSubmissionQueueService examSubmissionQueueService;
+    
+    @Autowired
+    private ExamAutosaveService examAutosaveService;
+    
+    // When enabled, submissions are queued and graded in the background
+    @Value("${exam.submission-queue.enabled:false}")
+    private boolean submissionQueueEnabled;
     
     @GetMapping("/available")
     @Operation(summary = "Get Available Exams", description = "Get all available exams for the student")
@@ -74,13 +87,32 @@ public class StudentExamController {
         }
     }
     
+    @PatchMapping("/{examId}/answers")
+    @Operation(summary = "Save Answers", description = "Autosave changed answers (questionId -> option) of an in-progress exam")
+    public ResponseEntity<?> saveAnswers(
+            @PathVariable Long examId,
+            @RequestBody Map<Long, String> changes) {
+        try {
+            Long studentId = getCurrentStudentId();
+            return ResponseEntity.ok(examAutosaveService.saveAnswers(examId, studentId, changes));
+        } catch (RuntimeException e) {
+            System.err.println("Error in saveAnswers: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     @PostMapping("/{examId}/submit")
-    @Operation(summary = "Submit Exam", description = "Submit exam answers and get results")
-    public ResponseEntity<ExamResultDTO> submitExam(
+    @Operation(summary = "Submit Exam", description = "Submit exam answers and get results, or a ticket when the submission queue is enabled")
+    public ResponseEntity<?> submitExam(
             @PathVariable Long examId,
             @RequestBody Map<Long, String> answers) {
         try {
             Long studentId = getCurrentStudentId();
+            if (submissionQueueEnabled) {
+                ExamSubmission submission = examSubmissionQueueService.enqueue(examId, studentId, answers);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(Map.of("ticketId", submission.getId(), "status", submission.getStatus()));
+            }
             ExamResultDTO result = examService.submitExam(examId, studentId, answers);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -90,6 +122,18 @@ public class StudentExamController {
         }
     }
     
+    @GetMapping("/submissions/{ticketId}")
+    @Operation(summary = "Get Submission Status", description = "Poll a queued exam submission; includes the result once graded")
+    public ResponseEntity<Map<String, Object>> getSubmissionStatus(@PathVariable Long ticketId) {
+        try {
+            Long studentId = getCurrentStudentId();
+            return ResponseEntity.ok(examSubmissionQueueService.getSubmissionStatus(ticketId, studentId));
+        } catch (Exception e) {
+            System.err.println("Error in getSubmissionStatus: " + e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @GetMapping("/{examId}/result")
     @Operation(summary = "Get Exam Result", description = "Get detailed result with performance charts")
     public ResponseEntity<ExamResultDTO> getExamResult(@PathVariable Long examId) {
@@ -120,11 +164,11 @@ public class StudentExamController {
     }
     
     @GetMapping("/{examId}/questions")
-    @Operation(summary = "Get Exam Questions", description = "Get questions for an active exam")
+    @Operation(summary = "Get Exam Questions", description = "Get the student's paper for an exam they have started")
     public ResponseEntity<ExamDTO> getExamQuestions(@PathVariable Long examId) {
         try {
             Long studentId = getCurrentStudentId();
-            ExamDTO exam = examService.getExamById(examId);
+            ExamDTO exam = examService.getExamPaper(examId, studentId);
             return ResponseEntity.ok(exam);
         } catch (Exception e) {
             System.err.println("Error in getExamQuestions: " + e.getMessage());
@@ -165,11 +209,13 @@ public class StudentExamController {
             System.out.println("Found user ID: " + user.getId()); // Debug log
             
             // Find student by user ID
-            com.epathshala.entity.Student student = studentRepository.findByUser_Id(user.getId())
-                    .orElseThrow(() -> new RuntimeException("Student not found for user ID: " + user.getId()));
+            Long studentId = studentIdCache.getStudentId(user.getId());
+            if (studentId == null) {
+                throw new RuntimeException("Student not found for user ID: " + user.getId());
+            }
             
-            System.out.println("Found student ID: " + student.getId()); // Debug log
-            return student.getId();
+            System.out.println("Found student ID: " + studentId); // Debug log
+            return studentId;
         } catch (Exception e) {
             System.err.println("Error getting current student ID: " + e.getMessage());
             e.printStackTrace();
@@ -1,11 +1,15 @@
 package com.epathshala.controller;
 
 import com.epathshala.dto.AttendanceDTO;
+import com.epathshala.dto.BulkAttendanceDTO;
 import com.epathshala.dto.GradeDTO;
 import com.epathshala.dto.AssignmentDTO;
 import com.epathshala.dto.LeaveApprovalDTO;
+import com.epathshala.service.AttendanceSummaryService;
+import com.epathshala.service.GradeSheetService;
 import com.epathshala.service.TeacherService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -15,7 +19,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.List;
 import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api/teacher")
@@ -23,6 +29,10 @@ import java.util.Map;
 public class TeacherController {
     @Autowired
     private TeacherService teacherService;
+    @Autowired
+    private GradeSheetService gradeSheetService;
+    @Autowired
+    private AttendanceSummaryService attendanceSummaryService;
 
     @GetMapping("/students/{className}")
     public ResponseEntity<?> getStudentsByClass(@PathVariable String className) {
@@ -46,6 +56,53 @@ public class TeacherController {
         }
     }
 
+    @PostMapping("/attendance/bulk")
+    public ResponseEntity<?> markAttendanceBulk(@RequestBody BulkAttendanceDTO dto) {
+        try {
+            return ResponseEntity.ok(teacherService.markAttendanceBulk(dto));
+        } catch (Exception e) {
+            System.out.println("Error in markAttendanceBulk controller: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error marking attendance"));
+        }
+    }
+
+    @GetMapping("/attendance/summary/class/{className}")
+    public ResponseEntity<?> getClassAttendanceSummary(@PathVariable String className) {
+        try {
+            return ResponseEntity.ok(attendanceSummaryService.getClassSummary(className));
+        } catch (Exception e) {
+            System.out.println("Error in getClassAttendanceSummary controller: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error fetching attendance summary"));
+        }
+    }
+
+    @GetMapping("/attendance/summary/student/{studentId}")
+    public ResponseEntity<?> getStudentAttendanceSummary(@PathVariable Long studentId) {
+        try {
+            return ResponseEntity.ok(attendanceSummaryService.getStudentSummary(studentId));
+        } catch (Exception e) {
+            System.out.println("Error in getStudentAttendanceSummary controller: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error fetching attendance summary"));
+        }
+    }
+
+    // Students below the threshold percentage over the last few months
+    @GetMapping("/attendance/chronic-absence/{className}")
+    public ResponseEntity<?> getChronicAbsentees(@PathVariable String className,
+                                                 @RequestParam(defaultValue = "3") int months,
+                                                 @RequestParam(defaultValue = "90") double threshold) {
+        try {
+            return ResponseEntity.ok(attendanceSummaryService.getChronicAbsentees(className, months, threshold));
+        } catch (Exception e) {
+            System.out.println("Error in getChronicAbsentees controller: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error fetching chronic absentees"));
+        }
+    }
+
     @GetMapping("/attendance/{className}")
     public ResponseEntity<?> getAttendanceByClass(@PathVariable String className) {
         try {
@@ -68,6 +125,30 @@ public class TeacherController {
         }
     }
 
+    @PostMapping("/grades/bulk")
+    public ResponseEntity<?> enterGradesBulk(@RequestBody List<GradeDTO> grades,
+                                             @RequestParam(required = false) String className) {
+        try {
+            return ResponseEntity.ok(gradeSheetService.enterGrades(grades, className));
+        } catch (Exception e) {
+            System.out.println("Error in enterGradesBulk controller: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    // Raw CSV body (studentId,subject,marks header), read as it arrives
+    @PostMapping(value = "/grades/upload", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<?> uploadGradeSheet(@RequestParam(required = false) String className,
+                                              HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(gradeSheetService.importGradeSheet(request.getInputStream(), className));
+        } catch (Exception e) {
+            System.out.println("Error in uploadGradeSheet controller: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
     @GetMapping("/grades/{className}")
     public ResponseEntity<?> getGradesByClass(@PathVariable String className) {
         try {
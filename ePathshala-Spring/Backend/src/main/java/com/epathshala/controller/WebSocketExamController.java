@@ -0,0 +1,69 @@
+package com.epathshala.controller;
+
+import com.epathshala.interceptor.WebSocketInterceptor;
+import com.epathshala.entity.User;
+import com.epathshala.repository.UserRepository;
+import com.epathshala.service.ExamAutosaveService;
+import com.epathshala.service.StudentIdCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.util.Map;
+
+@Controller
+public class WebSocketExamController {
+
+    @Autowired
+    private ExamAutosaveService examAutosaveService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StudentIdCache studentIdCache;
+
+    // STOMP equivalent of PATCH /api/student/exams/{examId}/answers
+    @MessageMapping("/exam.{examId}.answers")
+    @SendToUser("/queue/exam-autosave")
+    public Map<String, Object> saveAnswers(@DestinationVariable Long examId,
+                                           @Payload Map<Long, String> changes,
+                                           SimpMessageHeaderAccessor headerAccessor) {
+        try {
+            Long studentId = getStudentId(headerAccessor);
+            if (studentId == null) {
+                return Map.of("error", "Connect with a student token to save answers");
+            }
+            return examAutosaveService.saveAnswers(examId, studentId, changes);
+        } catch (Exception e) {
+            System.err.println("Error in WebSocket saveAnswers: " + e.getMessage());
+            return Map.of("error", e.getMessage());
+        }
+    }
+
+    private Long getStudentId(SimpMessageHeaderAccessor headerAccessor) {
+        Map<String, Object> sessionAttributes = headerAccessor.getSessionAttributes();
+        if (sessionAttributes == null) {
+            return null;
+        }
+        // Only the identity verified from the CONNECT token; the client-supplied userEmail header is not trusted
+        String userEmail = (String) sessionAttributes.get(WebSocketInterceptor.VERIFIED_EMAIL);
+        if (userEmail == null) {
+            return null;
+        }
+        Long userId = (Long) sessionAttributes.get(WebSocketInterceptor.VERIFIED_USER_ID);
+        if (userId == null) {
+            // Tokens without a user id claim
+            userId = userRepository.findByEmail(userEmail).map(User::getId).orElse(null);
+            if (userId == null) {
+                return null;
+            }
+            sessionAttributes.put(WebSocketInterceptor.VERIFIED_USER_ID, userId);
+        }
+        return studentIdCache.getStudentId(userId);
+    }
+}
@@ -0,0 +1,24 @@
+package com.epathshala.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAttendanceDTO {
+    private LocalDate date;
+    private String className; // Optional; when set, every student must belong to it
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private Long studentId;
+        private String status; // Present/Absent
+    }
+}
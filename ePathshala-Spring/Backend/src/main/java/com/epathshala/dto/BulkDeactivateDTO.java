@@ -0,0 +1,18 @@
+package com.epathshala.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+// Users to deactivate: explicit user ids and/or every student of a class (e.g. a graduating class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeactivateDTO {
+    private List<Long> userIds;
+    private String className;
+    // Also deactivate parents whose children are all in className
+    private Boolean includeParents;
+}
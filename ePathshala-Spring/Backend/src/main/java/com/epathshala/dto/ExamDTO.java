@@ -38,6 +38,10 @@ public class ExamDTO {
     
     private Boolean isActive = true;
     
+    private Boolean randomizeQuestions = false;
+    
+    private Integer questionsPerPaper;
+    
     private Long courseId;
     
     private String courseName;
@@ -147,6 +151,22 @@ public class ExamDTO {
         this.isActive = isActive;
     }
     
+    public Boolean getRandomizeQuestions() {
+        return randomizeQuestions;
+    }
+    
+    public void setRandomizeQuestions(Boolean randomizeQuestions) {
+        this.randomizeQuestions = randomizeQuestions;
+    }
+    
+    public Integer getQuestionsPerPaper() {
+        return questionsPerPaper;
+    }
+    
+    public void setQuestionsPerPaper(Integer questionsPerPaper) {
+        this.questionsPerPaper = questionsPerPaper;
+    }
+    
     public Long getCourseId() {
         return courseId;
     }
@@ -4,9 +4,31 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDate;
+import java.util.List;
 
+@Data
+@NoArgsConstructor
 public class ParentDashboardDTO {
 
+    // Populated by GET /api/parent/dashboard/{userId}, covering all of the parent's children
+    private List<ChildSummaryDTO> children;
+    private List<AttendanceResponseDTO> attendance;
+    private List<GradeResponseDTO> grades;
+    private List<LeaveRequestResponseDTO> leaveRequests;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChildSummaryDTO {
+        private Long studentId;
+        private String studentName;
+        private String className;
+        private long totalDays;
+        private long presentCount;
+        private long absentCount;
+        private double attendancePercentage;
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -4,9 +4,40 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDate;
+import java.util.List;
 
+@Data
+@NoArgsConstructor
 public class StudentDashboardDTO {
 
+    // Populated by GET /api/student/dashboard/{userId}; the nested DTOs are also served on their own
+    private StudentDetailsDTO student;
+    private AttendanceSummaryDTO attendanceSummary;
+    private List<GradeResponseDTO> grades;
+    private List<AssignmentResponseDTO> assignments;
+    private List<LeaveRequestResponseDTO> leaveRequests;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StudentDetailsDTO {
+        private Long id;
+        private String name;
+        private String email;
+        private String studentClass;
+        private Long userId;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AttendanceSummaryDTO {
+        private long totalDays;
+        private long presentCount;
+        private long absentCount;
+        private double attendancePercentage;
+    }
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
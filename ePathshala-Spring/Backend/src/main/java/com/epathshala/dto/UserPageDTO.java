@@ -0,0 +1,17 @@
+package com.epathshala.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+// One keyset page of an admin user list; pass nextCursor as "after" to get the next page
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageDTO {
+    private List<UserListDTO> items;
+    private Long nextCursor;
+    private boolean hasMore;
+}
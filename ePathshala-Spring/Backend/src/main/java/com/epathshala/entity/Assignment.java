@@ -8,6 +8,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_assignment_class_created", columnList = "class_name, created_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
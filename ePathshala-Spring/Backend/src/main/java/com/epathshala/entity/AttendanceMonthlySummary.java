@@ -0,0 +1,37 @@
+package com.epathshala.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import javax.persistence.*;
+import java.time.LocalDate;
+
+// Per-student attendance counts for one calendar month, maintained by AttendanceSummaryService
+@Entity
+@Table(name = "attendance_monthly_summary",
+       uniqueConstraints = @UniqueConstraint(name = "uk_attendance_summary_student_month", columnNames = {"student_id", "month_start"}),
+       indexes = @Index(name = "idx_attendance_summary_class_month", columnList = "class_name, month_start"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceMonthlySummary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "class_name")
+    private String className;
+
+    // First day of the month
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "total_days", nullable = false)
+    private Integer totalDays;
+
+    @Column(name = "present_days", nullable = false)
+    private Integer presentDays;
+}
@@ -14,7 +14,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "exams")
+@Table(name = "exams", indexes = {
+    @Index(name = "idx_exams_course_active_start", columnList = "course_id, is_active, start_time")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Exam {
     
@@ -56,6 +58,14 @@ public class Exam {
     @Column(nullable = false)
     private Boolean isActive = true;
     
+    // Each student gets a shuffled paper drawn from a seed on their attempt (see ExamQuestionPool)
+    @Column
+    private Boolean randomizeQuestions = false;
+    
+    // Size of a randomized paper; null means every question
+    @Column
+    private Integer questionsPerPaper;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id", nullable = false)
     @JsonIgnore
@@ -176,6 +186,22 @@ public class Exam {
         this.isActive = isActive;
     }
     
+    public Boolean getRandomizeQuestions() {
+        return randomizeQuestions;
+    }
+    
+    public void setRandomizeQuestions(Boolean randomizeQuestions) {
+        this.randomizeQuestions = randomizeQuestions;
+    }
+    
+    public Integer getQuestionsPerPaper() {
+        return questionsPerPaper;
+    }
+    
+    public void setQuestionsPerPaper(Integer questionsPerPaper) {
+        this.questionsPerPaper = questionsPerPaper;
+    }
+    
     public com.epathshala.entity.Teacher getCourse() {
         return course;
     }
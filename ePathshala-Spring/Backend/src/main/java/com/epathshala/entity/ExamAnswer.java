@@ -1,6 +1,8 @@
 package com.epathshala.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -10,12 +12,24 @@ import javax.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "exam_answers")
+@Table(name = "exam_answers", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_exam_answers_attempt_question", columnNames = {"attempt_id", "question_id"})
+})
 @EntityListeners(AuditingEntityListener.class)
 public class ExamAnswer {
     
+    // Pooled ids (instead of IDENTITY) let Hibernate batch the answer inserts of a submission
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "exam_answer_id")
+    @GenericGenerator(
+        name = "exam_answer_id",
+        strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+        parameters = {
+            @Parameter(name = "sequence_name", value = "exam_answers_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+        }
+    )
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -147,6 +161,11 @@ public class ExamAnswer {
         }
     }
     
+    public void calculateMarks(ExamAnswerKey answerKey, int index) {
+        this.isCorrect = answerKey.isCorrect(index, selectedAnswer);
+        this.marksObtained = answerKey.marksFor(index, isCorrect);
+    }
+    
     public String getCorrectAnswer() {
         return question != null ? question.getCorrectAnswer() : null;
     }
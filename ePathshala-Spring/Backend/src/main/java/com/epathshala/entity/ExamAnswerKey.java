@@ -0,0 +1,137 @@
+package com.epathshala.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, non-persistent snapshot of an exam's answer key.
+ * Questions are stored in parallel arrays sorted by question id, with the
+ * correct option packed into a byte, so grading never touches Hibernate entities.
+ */
+public final class ExamAnswerKey {
+
+    private static final byte NO_OPTION = 0;
+
+    private final Long examId;
+
+    private final boolean negativeMarking;
+
+    private final double negativeMarkingPercentage;
+
+    private final long[] questionIds;
+
+    private final byte[] correctOptions;
+
+    private final int[] marks;
+
+    private final String[] topics;
+
+    private final String[] difficulties;
+
+    private final int totalMarks;
+
+    private ExamAnswerKey(Exam exam, List<ExamQuestion> questions) {
+        int size = questions.size();
+        this.examId = exam.getId();
+        this.negativeMarking = Boolean.TRUE.equals(exam.getNegativeMarking());
+        this.negativeMarkingPercentage = exam.getNegativeMarkingPercentage() != null ? exam.getNegativeMarkingPercentage() : 0.0;
+        this.questionIds = new long[size];
+        this.correctOptions = new byte[size];
+        this.marks = new int[size];
+        this.topics = new String[size];
+        this.difficulties = new String[size];
+
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            ExamQuestion question = questions.get(i);
+            questionIds[i] = question.getId();
+            correctOptions[i] = encodeOption(question.getCorrectAnswer());
+            marks[i] = question.getMarks() != null ? question.getMarks() : 0;
+            topics[i] = question.getTopic();
+            difficulties[i] = question.getDifficulty();
+            total += marks[i];
+        }
+        this.totalMarks = total;
+    }
+
+    public static ExamAnswerKey of(Exam exam, List<ExamQuestion> questions) {
+        List<ExamQuestion> sorted = new ArrayList<>(questions);
+        sorted.sort(Comparator.comparing(ExamQuestion::getId));
+        return new ExamAnswerKey(exam, sorted);
+    }
+
+    // Packs A-D into 1-4; anything else is NO_OPTION and never matches
+    public static byte encodeOption(String option) {
+        if (option == null || option.length() != 1) {
+            return NO_OPTION;
+        }
+        switch (Character.toUpperCase(option.charAt(0))) {
+            case 'A': return 1;
+            case 'B': return 2;
+            case 'C': return 3;
+            case 'D': return 4;
+            default: return NO_OPTION;
+        }
+    }
+
+    public Long getExamId() {
+        return examId;
+    }
+
+    public boolean isNegativeMarking() {
+        return negativeMarking;
+    }
+
+    public double getNegativeMarkingPercentage() {
+        return negativeMarkingPercentage;
+    }
+
+    public int getQuestionCount() {
+        return questionIds.length;
+    }
+
+    public int getTotalMarks() {
+        return totalMarks;
+    }
+
+    // Returns the position of the question in this key, or -1 if it is not part of the exam
+    public int indexOf(Long questionId) {
+        if (questionId == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(questionIds, questionId);
+        return index >= 0 ? index : -1;
+    }
+
+    public long getQuestionId(int index) {
+        return questionIds[index];
+    }
+
+    public int getMarks(int index) {
+        return marks[index];
+    }
+
+    public String getTopic(int index) {
+        return topics[index];
+    }
+
+    public String getDifficulty(int index) {
+        return difficulties[index];
+    }
+
+    public boolean isCorrect(int index, String selectedAnswer) {
+        byte selected = encodeOption(selectedAnswer);
+        return selected != NO_OPTION && selected == correctOptions[index];
+    }
+
+    public int marksFor(int index, boolean correct) {
+        if (correct) {
+            return marks[index];
+        } else if (negativeMarking) {
+            return (int) (-marks[index] * negativeMarkingPercentage / 100.0);
+        }
+        return 0;
+    }
+}
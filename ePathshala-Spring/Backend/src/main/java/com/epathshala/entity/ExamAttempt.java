@@ -61,6 +61,10 @@ public class ExamAttempt {
     @Column(nullable = false)
     private String status = "IN_PROGRESS"; // IN_PROGRESS, COMPLETED, TIMEOUT
     
+    // Seed of the student's randomized paper; null when the exam serves every question in order
+    @Column
+    private Long paperSeed;
+    
     @OneToMany(mappedBy = "attempt", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     private List<ExamAnswer> answers = new ArrayList<>();
@@ -188,6 +192,14 @@ public class ExamAttempt {
         this.status = status;
     }
     
+    public Long getPaperSeed() {
+        return paperSeed;
+    }
+    
+    public void setPaperSeed(Long paperSeed) {
+        this.paperSeed = paperSeed;
+    }
+    
     public List<ExamAnswer> getAnswers() {
         return answers;
     }
@@ -229,22 +241,20 @@ public class ExamAttempt {
     }
     
     public void calculateResults() {
-        this.answeredQuestions = answers.size();
-        this.correctAnswers = (int) answers.stream()
-                .filter(answer -> answer.getQuestion().isCorrectAnswer(answer.getSelectedAnswer()))
+        calculateResults(answers);
+    }
+    
+    // Uses the marks already computed by ExamAnswer.calculateMarks(), so no question is reloaded
+    public void calculateResults(List<ExamAnswer> gradedAnswers) {
+        this.answeredQuestions = gradedAnswers.size();
+        this.correctAnswers = (int) gradedAnswers.stream()
+                .filter(ExamAnswer::getIsCorrect)
                 .count();
         this.incorrectAnswers = answeredQuestions - correctAnswers;
         
-        // Calculate marks with negative marking
-        this.obtainedMarks = answers.stream()
-                .mapToInt(answer -> {
-                    if (answer.getQuestion().isCorrectAnswer(answer.getSelectedAnswer())) {
-                        return answer.getQuestion().getMarks();
-                    } else if (exam.getNegativeMarking()) {
-                        return (int) (-answer.getQuestion().getMarks() * exam.getNegativeMarkingPercentage() / 100.0);
-                    }
-                    return 0;
-                })
+        // Marks already include negative marking
+        this.obtainedMarks = gradedAnswers.stream()
+                .mapToInt(ExamAnswer::getMarksObtained)
                 .sum();
         
         this.percentage = totalMarks > 0 ? (obtainedMarks * 100.0) / totalMarks : 0.0;
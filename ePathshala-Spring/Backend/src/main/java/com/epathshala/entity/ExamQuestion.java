@@ -1,6 +1,8 @@
 package com.epathshala.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -18,8 +20,18 @@ import java.util.List;
 @EntityListeners(AuditingEntityListener.class)
 public class ExamQuestion {
     
+    // Pooled ids (instead of IDENTITY) let Hibernate batch the inserts of a question bank import
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "exam_question_id")
+    @GenericGenerator(
+        name = "exam_question_id",
+        strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+        parameters = {
+            @Parameter(name = "sequence_name", value = "exam_questions_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+        }
+    )
     private Long id;
     
     @NotBlank(message = "Question text is required")
@@ -0,0 +1,62 @@
+package com.epathshala.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Raw exam submission staged by the intake endpoint and graded later by ExamSubmissionQueueService
+@Entity
+@Table(name = "exam_submissions", indexes = {
+    @Index(name = "idx_exam_submissions_status", columnList = "status, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamSubmission {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long examId;
+    
+    @Column(nullable = false)
+    private Long studentId;
+    
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String answersJson;
+    
+    @Column(nullable = false)
+    private String status = "QUEUED"; // QUEUED, PROCESSING, COMPLETED, FAILED
+    
+    @Column
+    private Long attemptId;
+    
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    // When a worker moved the submission to PROCESSING
+    @Column
+    private LocalDateTime claimedAt;
+    
+    @Column
+    private LocalDateTime processedAt;
+    
+    // Times the submission was queued again after a failed grading
+    @Column
+    private Integer retryCount = 0;
+    
+    public ExamSubmission(Long examId, Long studentId, String answersJson) {
+        this.examId = examId;
+        this.studentId = studentId;
+        this.answersJson = answersJson;
+        this.status = "QUEUED";
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_grade_student", columnList = "student_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -7,6 +7,7 @@ import javax.persistence.*;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = @Index(name = "idx_leave_request_student", columnList = "student_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -8,6 +8,10 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_otp_email_created", columnList = "email, created_at"),
+    @Index(name = "idx_otp_created", columnList = "created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,35 @@
+package com.epathshala.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Used and expired OTPs moved out of the otp table by DataRetentionService; id is the original otp row id
+@Entity
+@Table(name = "otp_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OtpArchive {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(nullable = false)
+    private String otp;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+
+    private Boolean isUsed;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_parent_user", columnList = "user_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -8,6 +8,10 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_session_user_active", columnList = "user_id, is_active"),
+    @Index(name = "idx_session_active_logout", columnList = "is_active, logout_time")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
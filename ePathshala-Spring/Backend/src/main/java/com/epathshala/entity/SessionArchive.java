@@ -0,0 +1,45 @@
+package com.epathshala.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Closed sessions moved out of the session table by DataRetentionService; id is the original session row id
+@Entity
+@Table(name = "session_archive",
+       indexes = @Index(name = "idx_session_archive_user", columnList = "user_id, login_time"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionArchive {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String sessionId;
+
+    // No foreign key, so archived sessions do not block deleting the user
+    @Column(nullable = false)
+    private Long userId;
+
+    private LocalDateTime loginTime;
+
+    private LocalDateTime lastActivityTime;
+
+    private LocalDateTime expiryTime;
+
+    private String ipAddress;
+
+    private String userAgent;
+
+    private LocalDateTime logoutTime;
+
+    private String logoutReason;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
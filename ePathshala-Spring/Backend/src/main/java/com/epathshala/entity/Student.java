@@ -6,6 +6,11 @@ import lombok.AllArgsConstructor;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_student_user", columnList = "user_id"),
+    @Index(name = "idx_student_parent", columnList = "parent_id"),
+    @Index(name = "idx_student_class", columnList = "student_class")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
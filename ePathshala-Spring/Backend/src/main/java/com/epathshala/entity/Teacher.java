@@ -6,7 +6,9 @@ import lombok.AllArgsConstructor;
 import javax.persistence.*;
 
 @Entity
-@Table(name = "teacher")
+@Table(name = "teacher", indexes = {
+    @Index(name = "idx_teacher_assigned_class", columnList = "assigned_class")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
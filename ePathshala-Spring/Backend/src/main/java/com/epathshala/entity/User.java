@@ -20,4 +20,6 @@ public class User {
     private String password;
     private String role; // ADMIN, STUDENT, TEACHER, PARENT
     private String accountNumber;
+    // null for accounts created before deactivation existed; only false blocks sign-in
+    private Boolean active;
 }
\ No newline at end of file
@@ -1,12 +1,19 @@
 package com.epathshala.interceptor;
 
+import com.epathshala.security.JwtUtil;
+import com.epathshala.security.PrincipalCache;
+import com.epathshala.security.VerifiedToken;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
@@ -14,10 +21,54 @@ import java.util.Map;
 @Component
 public class WebSocketInterceptor implements ChannelInterceptor {
 
+    // Session attribute holding the email of a connection authenticated with a JWT; never taken from client headers
+    public static final String VERIFIED_EMAIL = "verifiedEmail";
+
+    // User id claim of that token, when the token carries one
+    public static final String VERIFIED_USER_ID = "verifiedUserId";
+
+    private static final String EXAM_QUEUE_PREFIX = "/user/queue/exam-";
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
         
+        // A CONNECT carrying a bearer token must be valid; the principal then comes from the token's subject
+        if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())
+                && accessor.getFirstNativeHeader("Authorization") != null) {
+            VerifiedToken token = verify(accessor.getFirstNativeHeader("Authorization"));
+            UserDetails user = token != null ? principalCache.authenticate(token) : null;
+            if (user == null) {
+                throw new MessagingException("Invalid or expired token");
+            }
+            accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+            Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+            if (sessionAttributes != null) {
+                sessionAttributes.put(VERIFIED_EMAIL, user.getUsername());
+                sessionAttributes.put("userEmail", user.getUsername());
+                if (token.getUserId() != null) {
+                    sessionAttributes.put(VERIFIED_USER_ID, token.getUserId());
+                }
+            }
+            return message;
+        }
+        
+        // Exam timers and autosave replies are only delivered to authenticated connections
+        if (accessor != null && StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                && accessor.getDestination() != null && accessor.getDestination().startsWith(EXAM_QUEUE_PREFIX)) {
+            Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+            if (sessionAttributes == null || sessionAttributes.get(VERIFIED_EMAIL) == null) {
+                throw new MessagingException("Exam updates require a connection authenticated with a token");
+            }
+        }
+        
+        // Connections without a token keep the header-based identity used by chat
         if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
             // Extract user information from headers
             String userEmail = accessor.getFirstNativeHeader("userEmail");
@@ -42,4 +93,16 @@ public class WebSocketInterceptor implements ChannelInterceptor {
         
         return message;
     }
-} 
\ No newline at end of file
+
+    private VerifiedToken verify(String authorization) {
+        if (!authorization.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtUtil.verify(authorization.substring(7));
+        } catch (Exception e) {
+            System.err.println("WebSocket CONNECT rejected: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -2,6 +2,51 @@ package com.epathshala.repository;
 
 import com.epathshala.entity.Attendance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
-}
\ No newline at end of file
+
+    // Locked so the previous status used for the monthly rollup cannot change before this transaction commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Attendance> findByStudentIdAndDate(Long studentId, LocalDate date);
+
+    @Query("SELECT a FROM Attendance a LEFT JOIN FETCH a.markedBy t LEFT JOIN FETCH t.user " +
+           "WHERE a.student.id = :studentId ORDER BY a.id")
+    List<Attendance> findByStudentIdWithTeacher(@Param("studentId") Long studentId);
+
+    // [studentId, status] of the given students that are already marked on this day; a locking read, so it sees
+    // the latest committed marks and holds them until the caller's transaction ends
+    @Query(value = "SELECT student_id, status FROM attendance WHERE date = :date AND student_id IN (:studentIds) FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> findStatusesByDate(@Param("date") LocalDate date, @Param("studentIds") Collection<Long> studentIds);
+
+    // Class-scoped; student_class is indexed
+    @Query("SELECT a FROM Attendance a JOIN a.student s WHERE s.studentClass = :className ORDER BY a.id")
+    List<Attendance> findByStudentClass(@Param("className") String className);
+
+    // Attendance of every child of the parent with this user id
+    @Query("SELECT a FROM Attendance a JOIN FETCH a.student s JOIN FETCH s.user " +
+           "WHERE s.parent.user.id = :parentUserId ORDER BY s.id, a.id")
+    List<Attendance> findByParentUserId(@Param("parentUserId") Long parentUserId);
+
+    @Query("SELECT DISTINCT a.student.id FROM Attendance a WHERE a.markedBy.id = :teacherId")
+    List<Long> findStudentIdsByMarkedById(@Param("teacherId") Long teacherId);
+
+    @Modifying
+    @Query("DELETE FROM Attendance a WHERE a.student.id = :studentId")
+    int deleteByStudentId(@Param("studentId") Long studentId);
+
+    @Modifying
+    @Query("DELETE FROM Attendance a WHERE a.markedBy.id = :teacherId")
+    int deleteByMarkedById(@Param("teacherId") Long teacherId);
+}
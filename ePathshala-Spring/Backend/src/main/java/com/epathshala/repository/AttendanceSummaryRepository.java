@@ -0,0 +1,41 @@
+package com.epathshala.repository;
+
+import com.epathshala.entity.AttendanceMonthlySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AttendanceSummaryRepository extends JpaRepository<AttendanceMonthlySummary, Long> {
+
+    List<AttendanceMonthlySummary> findByStudentIdOrderByMonthStartAsc(Long studentId);
+
+    // A single [total, present] row
+    @Query("SELECT COALESCE(SUM(m.totalDays), 0), COALESCE(SUM(m.presentDays), 0) " +
+           "FROM AttendanceMonthlySummary m WHERE m.studentId = :studentId")
+    List<Object[]> summarizeByStudentId(@Param("studentId") Long studentId);
+
+    // [studentId, total, present] per child of the parent with this user id
+    @Query("SELECT m.studentId, SUM(m.totalDays), SUM(m.presentDays) FROM AttendanceMonthlySummary m, Student s " +
+           "WHERE s.id = m.studentId AND s.parent.user.id = :parentUserId GROUP BY m.studentId")
+    List<Object[]> summarizeByParentUserId(@Param("parentUserId") Long parentUserId);
+
+    // [monthStart, total, present] per month of one class
+    @Query("SELECT m.monthStart, SUM(m.totalDays), SUM(m.presentDays) FROM AttendanceMonthlySummary m " +
+           "WHERE m.className = :className GROUP BY m.monthStart ORDER BY m.monthStart")
+    List<Object[]> summarizeClassByMonth(@Param("className") String className);
+
+    // [studentId, total, present] per student of one class, from the given month on
+    @Query("SELECT m.studentId, SUM(m.totalDays), SUM(m.presentDays) FROM AttendanceMonthlySummary m " +
+           "WHERE m.className = :className AND m.monthStart >= :from GROUP BY m.studentId")
+    List<Object[]> summarizeClassByStudent(@Param("className") String className, @Param("from") LocalDate from);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AttendanceMonthlySummary m WHERE m.studentId = :studentId")
+    int deleteByStudentId(@Param("studentId") Long studentId);
+}
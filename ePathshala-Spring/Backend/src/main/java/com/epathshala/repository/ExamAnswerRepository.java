@@ -2,9 +2,17 @@ package com.epathshala.repository;
 
 import com.epathshala.entity.ExamAnswer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ExamAnswerRepository extends JpaRepository<ExamAnswer, Long> {
@@ -14,4 +22,17 @@ public interface ExamAnswerRepository extends JpaRepository<ExamAnswer, Long> {
     List<ExamAnswer> findByQuestionId(Long questionId);
     
     List<ExamAnswer> findByAttemptIdAndIsCorrect(Long attemptId, Boolean isCorrect);
+    
+    // Streams [attemptId, attemptPercentage, questionId, selectedAnswer, isCorrect] rows of completed attempts;
+    // MySQL only streams rows with a fetch size of Integer.MIN_VALUE
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT a.attempt.id, a.attempt.percentage, a.question.id, a.selectedAnswer, a.isCorrect FROM ExamAnswer a " +
+           "WHERE a.attempt.exam.id = :examId AND a.attempt.status = 'COMPLETED'")
+    Stream<Object[]> streamCompletedAnswersByExamId(@Param("examId") Long examId);
+    
+    // Moves the id sequence past ids handed out by the old AUTO_INCREMENT column
+    @Modifying
+    @Query(value = "UPDATE exam_answers_seq SET next_val = GREATEST(next_val, " +
+                   "(SELECT COALESCE(MAX(id), 0) + 1 FROM exam_answers))", nativeQuery = true)
+    int alignIdSequence();
 } 
\ No newline at end of file
@@ -2,12 +2,19 @@ package com.epathshala.repository;
 
 import com.epathshala.entity.ExamAttempt;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ExamAttemptRepository extends JpaRepository<ExamAttempt, Long> {
@@ -18,6 +25,19 @@ public interface ExamAttemptRepository extends JpaRepository<ExamAttempt, Long>
     
     Optional<ExamAttempt> findByExamIdAndStudentId(Long examId, Long studentId);
     
+    @Query("SELECT ea.id FROM ExamAttempt ea WHERE ea.exam.id = :examId AND ea.student.id = :studentId")
+    Optional<Long> findIdByExamIdAndStudentId(@Param("examId") Long examId, @Param("studentId") Long studentId);
+    
+    // Submitting and autosave flushes lock the attempt row, so answers are never written to a completed attempt
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ea FROM ExamAttempt ea WHERE ea.id = :id")
+    Optional<ExamAttempt> findByIdForUpdate(@Param("id") Long id);
+    
+    // [attemptId, status, startTime, durationMinutes] of one attempt, for ExamAutosaveService
+    @Query("SELECT ea.id, ea.status, ea.startTime, e.durationMinutes FROM ExamAttempt ea JOIN ea.exam e " +
+           "WHERE e.id = :examId AND ea.student.id = :studentId")
+    List<Object[]> findAutosaveStateByExamIdAndStudentId(@Param("examId") Long examId, @Param("studentId") Long studentId);
+    
     @Query("SELECT ea FROM ExamAttempt ea WHERE ea.exam.id = :examId AND ea.status = :status")
     List<ExamAttempt> findByExamIdAndStatus(@Param("examId") Long examId, @Param("status") String status);
     
@@ -31,4 +51,29 @@ public interface ExamAttemptRepository extends JpaRepository<ExamAttempt, Long>
     Long countByStudentId(@Param("studentId") Long studentId);
     
     List<ExamAttempt> findByExamId(Long examId);
+    
+    // Forward-only result rows for exporting; see ExamResultExportService.COLUMNS for the column order
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT ea.id, u.name, u.email, ea.status, ea.startTime, ea.endTime, ea.totalQuestions, ea.answeredQuestions, " +
+           "ea.correctAnswers, ea.incorrectAnswers, ea.totalMarks, ea.obtainedMarks, ea.percentage " +
+           "FROM ExamAttempt ea JOIN ea.student s JOIN s.user u WHERE ea.exam.id = :examId ORDER BY ea.id ASC")
+    Stream<Object[]> streamResultRowsByExamId(@Param("examId") Long examId);
+    
+    // Exams a student has attempted, for evicting their analytics when the student is removed
+    @Query("SELECT DISTINCT ea.exam.id FROM ExamAttempt ea WHERE ea.student.id = :studentId")
+    List<Long> findExamIdsByStudentId(@Param("studentId") Long studentId);
+    
+    // [attemptId, percentage] of every completed attempt, for rebuilding exam analytics
+    @Query("SELECT ea.id, ea.percentage FROM ExamAttempt ea WHERE ea.exam.id = :examId AND ea.status = 'COMPLETED'")
+    List<Object[]> findCompletedScoresByExamId(@Param("examId") Long examId);
+    
+    // [status, startTime, durationMinutes, userEmail] of one attempt, for re-registering its timer
+    @Query("SELECT ea.status, ea.startTime, e.durationMinutes, u.email FROM ExamAttempt ea JOIN ea.exam e " +
+           "JOIN ea.student s JOIN s.user u WHERE e.id = :examId AND s.id = :studentId")
+    List<Object[]> findTimerStateByExamIdAndStudentId(@Param("examId") Long examId, @Param("studentId") Long studentId);
+    
+    // [status, paperSeed, startTime, durationMinutes] of one attempt, for regenerating the student's paper
+    @Query("SELECT ea.status, ea.paperSeed, ea.startTime, e.durationMinutes FROM ExamAttempt ea JOIN ea.exam e " +
+           "WHERE e.id = :examId AND ea.student.id = :studentId")
+    List<Object[]> findPaperStateByExamIdAndStudentId(@Param("examId") Long examId, @Param("studentId") Long studentId);
 } 
\ No newline at end of file
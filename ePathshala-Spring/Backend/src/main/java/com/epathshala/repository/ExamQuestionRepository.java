@@ -18,7 +18,17 @@ public interface ExamQuestionRepository extends JpaRepository<ExamQuestion, Long
     
     List<ExamQuestion> findByExamIdAndDifficulty(Long examId, String difficulty);
     
+    // [examId, question count] for each of the exams that has questions
+    @Query("SELECT eq.exam.id, COUNT(eq) FROM ExamQuestion eq WHERE eq.exam.id IN :examIds GROUP BY eq.exam.id")
+    List<Object[]> countByExamIds(@Param("examIds") List<Long> examIds);
+    
     @Modifying
     @Query("DELETE FROM ExamQuestion eq WHERE eq.exam.id = :examId")
     void deleteByExamId(@Param("examId") Long examId);
+    
+    // Moves the id sequence past ids handed out by the old AUTO_INCREMENT column
+    @Modifying
+    @Query(value = "UPDATE exam_questions_seq SET next_val = GREATEST(next_val, " +
+                   "(SELECT COALESCE(MAX(id), 0) + 1 FROM exam_questions))", nativeQuery = true)
+    int alignIdSequence();
 } 
\ No newline at end of file
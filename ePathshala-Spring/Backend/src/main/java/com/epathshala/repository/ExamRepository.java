@@ -4,16 +4,29 @@ import com.epathshala.entity.Exam;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ExamRepository extends JpaRepository<Exam, Long> {
     
+    // Papers are drawn from the question pool: starting an attempt holds a shared lock on the exam,
+    // changing its questions an exclusive one, so no attempt starts while the pool changes
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT e FROM Exam e WHERE e.id = :id")
+    Optional<Exam> findByIdForAttempt(@Param("id") Long id);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Exam e WHERE e.id = :id")
+    Optional<Exam> findByIdForQuestionChange(@Param("id") Long id);
+    
     // Find exams by course
     List<Exam> findByCourseIdOrderByStartTimeDesc(Long courseId);
     
@@ -32,6 +45,11 @@ public interface ExamRepository extends JpaRepository<Exam, Long> {
     @Query("SELECT e FROM Exam e WHERE e.endTime < :now ORDER BY e.endTime DESC")
     List<Exam> findCompletedExams(@Param("now") LocalDateTime now);
     
+    // Find active exams for a class, fetching course and creator in the same query
+    @Query("SELECT e FROM Exam e JOIN FETCH e.course c JOIN FETCH e.createdBy " +
+           "WHERE c.assignedClass = :className AND e.isActive = true ORDER BY e.startTime ASC")
+    List<Exam> findActiveExamsByClass(@Param("className") String className);
+    
     // Find exams by faculty
     List<Exam> findByCreatedByIdOrderByCreatedAtDesc(Long facultyId);
     
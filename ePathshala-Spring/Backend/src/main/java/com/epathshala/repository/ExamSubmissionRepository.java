@@ -0,0 +1,33 @@
+package com.epathshala.repository;
+
+import com.epathshala.entity.ExamSubmission;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ExamSubmissionRepository extends JpaRepository<ExamSubmission, Long> {
+    
+    @Query("SELECT s.id FROM ExamSubmission s WHERE s.status = 'QUEUED' ORDER BY s.id ASC")
+    List<Long> findQueuedIds(Pageable pageable);
+    
+    // Returns 1 only for the caller that moved the submission out of QUEUED
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExamSubmission s SET s.status = 'PROCESSING', s.claimedAt = :now WHERE s.id = :id AND s.status = 'QUEUED'")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // Only claims older than the cutoff, so submissions another instance is still grading are left alone
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExamSubmission s SET s.status = 'QUEUED' WHERE s.status = 'PROCESSING' " +
+           "AND (s.claimedAt IS NULL OR s.claimedAt < :cutoff)")
+    int requeueInterrupted(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,6 +2,32 @@ package com.epathshala.repository;
 
 import com.epathshala.entity.Grade;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface GradeRepository extends JpaRepository<Grade, Long> {
-}
\ No newline at end of file
+
+    @Query("SELECT g FROM Grade g LEFT JOIN FETCH g.teacher t LEFT JOIN FETCH t.user " +
+           "WHERE g.student.id = :studentId ORDER BY g.id")
+    List<Grade> findByStudentIdWithTeacher(@Param("studentId") Long studentId);
+
+    // Class-scoped; student_class is indexed
+    @Query("SELECT g FROM Grade g JOIN g.student s WHERE s.studentClass = :className ORDER BY g.id")
+    List<Grade> findByStudentClass(@Param("className") String className);
+
+    // Grades of every child of the parent with this user id
+    @Query("SELECT g FROM Grade g JOIN FETCH g.student s JOIN FETCH s.user LEFT JOIN FETCH g.teacher t LEFT JOIN FETCH t.user " +
+           "WHERE s.parent.user.id = :parentUserId ORDER BY s.id, g.id")
+    List<Grade> findByParentUserId(@Param("parentUserId") Long parentUserId);
+
+    @Modifying
+    @Query("DELETE FROM Grade g WHERE g.student.id = :studentId")
+    int deleteByStudentId(@Param("studentId") Long studentId);
+
+    @Modifying
+    @Query("DELETE FROM Grade g WHERE g.teacher.id = :teacherId")
+    int deleteByTeacherId(@Param("teacherId") Long teacherId);
+}
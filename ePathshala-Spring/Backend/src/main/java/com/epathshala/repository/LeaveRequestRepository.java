@@ -2,6 +2,26 @@ package com.epathshala.repository;
 
 import com.epathshala.entity.LeaveRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long> {
-}
\ No newline at end of file
+
+    List<LeaveRequest> findByStudentIdOrderByIdAsc(Long studentId);
+
+    // Class-scoped; student_class is indexed
+    @Query("SELECT l FROM LeaveRequest l JOIN l.student s WHERE s.studentClass = :className ORDER BY l.id")
+    List<LeaveRequest> findByStudentClass(@Param("className") String className);
+
+    // Leave requests of every child of the parent with this user id
+    @Query("SELECT l FROM LeaveRequest l JOIN FETCH l.student s JOIN FETCH s.user " +
+           "WHERE s.parent.user.id = :parentUserId ORDER BY s.id, l.id")
+    List<LeaveRequest> findByParentUserId(@Param("parentUserId") Long parentUserId);
+
+    @Modifying
+    @Query("DELETE FROM LeaveRequest l WHERE l.student.id = :studentId")
+    int deleteByStudentId(@Param("studentId") Long studentId);
+}
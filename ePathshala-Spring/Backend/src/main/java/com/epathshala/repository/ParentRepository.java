@@ -2,9 +2,27 @@ package com.epathshala.repository;
 
 import com.epathshala.entity.Parent;
 import com.epathshala.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ParentRepository extends JpaRepository<Parent, Long> {
     Optional<Parent> findByUser(User user);
+
+    // [email, parentId] of existing parents with these user emails
+    @Query("SELECT u.email, p.id FROM Parent p JOIN p.user u WHERE u.email IN :emails")
+    List<Object[]> findIdsByUserEmails(@Param("emails") Collection<String> emails);
+
+    // [id, name, email, role] after the given id in id order (keyset page); className keeps parents with a child in that class
+    @Query("SELECT p.id, u.name, u.email, u.role FROM Parent p JOIN p.user u " +
+           "WHERE p.id > :afterId AND (:className IS NULL OR EXISTS " +
+           "(SELECT c.id FROM Student c WHERE c.parent = p AND c.studentClass = :className)) " +
+           "AND (:namePrefix IS NULL OR LOWER(u.name) LIKE :namePrefix ESCAPE '!') ORDER BY p.id")
+    List<Object[]> findListPage(@Param("afterId") long afterId, @Param("className") String className,
+                                @Param("namePrefix") String namePrefix, Pageable pageable);
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +27,10 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
     @Query("SELECT s FROM Session s WHERE s.isActive = true AND s.expiryTime < :now")
     List<Session> findExpiredSessions(@Param("now") LocalDateTime now);
     
+    // [sessionId, userId, loginTime, expiryTime] of sessions still open in login order, for SessionRegistry
+    @Query("SELECT s.sessionId, s.user.id, s.loginTime, s.expiryTime FROM Session s WHERE s.isActive = true AND s.expiryTime > :now ORDER BY s.loginTime, s.id")
+    List<Object[]> findActiveSessionStates(@Param("now") LocalDateTime now);
+    
     @Query("SELECT s FROM Session s WHERE s.user.id = :userId AND s.isActive = true")
     List<Session> findActiveSessionsByUserId(@Param("userId") Long userId);
     
@@ -38,8 +43,14 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
     void updateLastActivity(@Param("sessionId") String sessionId, @Param("activityTime") LocalDateTime activityTime);
     
     @Modifying
-    @Query("UPDATE Session s SET s.isActive = false, s.logoutTime = :logoutTime, s.logoutReason = 'Session expired' WHERE s.expiryTime < :now")
-    void expireSessions(@Param("now") LocalDateTime now, @Param("logoutTime") LocalDateTime logoutTime);
+    @Query("UPDATE Session s SET s.isActive = false, s.logoutTime = :logoutTime, s.logoutReason = 'Session expired' " +
+           "WHERE s.isActive = true AND s.expiryTime < :now")
+    int expireSessions(@Param("now") LocalDateTime now, @Param("logoutTime") LocalDateTime logoutTime);
+    
+    @Modifying
+    @Query("UPDATE Session s SET s.isActive = false, s.logoutTime = :logoutTime, s.logoutReason = :reason " +
+           "WHERE s.user.id IN :userIds AND s.isActive = true")
+    int invalidateUserSessions(@Param("userIds") Collection<Long> userIds, @Param("logoutTime") LocalDateTime logoutTime, @Param("reason") String reason);
     
     long countByUserAndIsActiveTrue(User user);
     
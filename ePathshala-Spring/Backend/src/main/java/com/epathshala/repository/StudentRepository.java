@@ -1,15 +1,52 @@
 package com.epathshala.repository;
 
 import com.epathshala.entity.Student;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
-    @Query("SELECT s FROM Student s WHERE s.user.id = :userId")
+    @Query("SELECT s FROM Student s JOIN FETCH s.user WHERE s.user.id = :userId")
     Optional<Student> findByUser_Id(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    @Query("SELECT s.id FROM Student s WHERE s.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    // [studentId, studentClass] of the given ids that exist
+    @Query("SELECT s.id, s.studentClass FROM Student s WHERE s.id IN :ids")
+    List<Object[]> findClassesByIds(@Param("ids") Collection<Long> ids);
+
+    // Same as findClassesByIds but locks the student rows in id order, so attendance for a student
+    // is marked by one transaction at a time even when that day has no row yet
+    @Query(value = "SELECT id, student_class FROM student WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockClassesByIds(@Param("ids") Collection<Long> ids);
+
+    // [studentId, name, email] of one class, for ClassRosterIndex
+    @Query("SELECT s.id, u.name, u.email FROM Student s LEFT JOIN s.user u WHERE s.studentClass = :className ORDER BY s.id")
+    List<Object[]> findRosterByClass(@Param("className") String className);
+
+    // [id, name, email, role, studentClass] after the given id in id order (keyset page); null filters are ignored
+    @Query("SELECT s.id, u.name, u.email, u.role, s.studentClass FROM Student s JOIN s.user u " +
+           "WHERE s.id > :afterId AND (:className IS NULL OR s.studentClass = :className) " +
+           "AND (:namePrefix IS NULL OR LOWER(u.name) LIKE :namePrefix ESCAPE '!') ORDER BY s.id")
+    List<Object[]> findListPage(@Param("afterId") long afterId, @Param("className") String className,
+                                @Param("namePrefix") String namePrefix, Pageable pageable);
+
+    @Query("SELECT s FROM Student s JOIN FETCH s.user WHERE s.parent.user.id = :parentUserId ORDER BY s.id")
+    List<Student> findByParentUserId(@Param("parentUserId") Long parentUserId);
+
+    @Query("SELECT s.user.id FROM Student s WHERE s.studentClass = :className")
+    List<Long> findUserIdsByClass(@Param("className") String className);
+
+    // User ids of parents whose children are all in this class
+    @Query("SELECT DISTINCT p.user.id FROM Student s JOIN s.parent p WHERE s.studentClass = :className " +
+           "AND NOT EXISTS (SELECT c.id FROM Student c WHERE c.parent = p AND c.studentClass <> :className)")
+    List<Long> findParentUserIdsByClass(@Param("className") String className);
+}
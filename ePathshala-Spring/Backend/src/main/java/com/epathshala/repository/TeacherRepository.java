@@ -1,6 +1,7 @@
 package com.epathshala.repository;
 
 import com.epathshala.entity.Teacher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,4 +21,14 @@ public interface TeacherRepository extends JpaRepository<Teacher, Long> {
     List<Teacher> findBySubject(String subject);
     
     List<Teacher> findByAssignedClass(String assignedClass);
+    
+    @Query("SELECT t.id FROM Teacher t WHERE t.user.email = :email")
+    Optional<Long> findIdByUserEmail(@Param("email") String email);
+
+    // [id, name, email, role, subject, assignedClass] after the given id in id order (keyset page); null filters are ignored
+    @Query("SELECT t.id, u.name, u.email, u.role, t.subject, t.assignedClass FROM Teacher t JOIN t.user u " +
+           "WHERE t.id > :afterId AND (:className IS NULL OR t.assignedClass = :className) " +
+           "AND (:namePrefix IS NULL OR LOWER(u.name) LIKE :namePrefix ESCAPE '!') ORDER BY t.id")
+    List<Object[]> findListPage(@Param("afterId") long afterId, @Param("className") String className,
+                                @Param("namePrefix") String namePrefix, Pageable pageable);
 }
\ No newline at end of file
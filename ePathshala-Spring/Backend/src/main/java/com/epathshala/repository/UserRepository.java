@@ -2,8 +2,30 @@ package com.epathshala.repository;
 
 import com.epathshala.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    // A single [id, role, active] row, for the JWT principal cache
+    @Query("SELECT u.id, u.role, u.active FROM User u WHERE u.email = :email")
+    List<Object[]> findAuthStateByEmail(@Param("email") String email);
+
+    @Query("SELECT u.email FROM User u WHERE u.id IN :ids")
+    List<String> findEmailsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Admin accounts are never deactivated in bulk
+    @Modifying
+    @Query("UPDATE User u SET u.active = false WHERE u.id IN :ids AND u.role <> 'ADMIN' " +
+           "AND (u.active IS NULL OR u.active = true)")
+    int deactivateByIds(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -4,8 +4,16 @@ import io.jsonwebtoken.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -14,16 +22,53 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${security.jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    // SHA-256 of the token -> its verified claims; entries are dropped once the token expires
+    private Map<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        verifiedTokens = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > verifiedCacheMaxEntries || eldest.getValue().isExpired();
+            }
+        });
+    }
+
+    /**
+     * Verify the signature and expiry of a token once and return its claims.
+     * A token seen before is served from the cache without verifying it again;
+     * the key is a hash of the whole token, signature included, so any altered
+     * token misses the cache and is verified in full.
+     * @throws JwtException when the token is malformed, forged or expired
+     */
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        VerifiedToken verified = verifiedTokens.get(key);
+        if (verified != null) {
+            if (!verified.isExpired()) {
+                return verified;
+            }
+            verifiedTokens.remove(key);
+        }
+        verified = new VerifiedToken(extractAllClaims(token));
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getSubject();
     }
 
     public String extractRole(String token) {
-        return (String) extractAllClaims(token).get("role");
+        return verify(token).getRole();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).getExpiration();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -31,17 +76,22 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
+    // Verifies the signature and expiry; throws JwtException when either fails
+    public Claims extractAllClaims(String token) {
         return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public String generateToken(UserDetails userDetails, String role) {
+        return generateToken(userDetails, role, null);
     }
 
-    public String generateToken(UserDetails userDetails, String role) {
+    // uid lets the filter tell a token apart from one issued to an earlier account with the same email
+    public String generateToken(UserDetails userDetails, String role, Long userId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role);
+        if (userId != null) {
+            claims.put("uid", userId);
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -53,7 +103,16 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        VerifiedToken verified = verify(token);
+        return verified.getSubject() != null && verified.getSubject().equals(userDetails.getUsername()) && !verified.isExpired();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
-}
\ No newline at end of file
+}
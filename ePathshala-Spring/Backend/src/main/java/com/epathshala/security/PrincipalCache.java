@@ -0,0 +1,144 @@
+package com.epathshala.security;
+
+import com.epathshala.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Account state the JWT filter checks token claims against (user id, role, active),
+ * keyed by email in a bounded LRU map whose entries expire after
+ * {@code security.principal-cache.ttl-seconds}. Requests are authenticated from the
+ * verified claims; the database is read only on a miss, an expired entry, or after
+ * {@link #revoke(String)}. A revocation also rejects tokens issued before it.
+ */
+@Component
+public class PrincipalCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${security.principal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${security.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // At least the token lifetime, so no token issued before a revocation can outlive its marker
+    @Value("${security.revocation.retention-hours:10}")
+    private long revocationRetentionHours;
+
+    private Map<String, CachedPrincipal> principals;
+
+    // email -> time of the last revocation
+    private final Map<String, Long> revokedAt = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        principals = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Build the principal for a verified token.
+     * @return null when the account is gone, deactivated, recreated, has another role, or the token was revoked
+     */
+    public UserDetails authenticate(VerifiedToken token) {
+        String email = token.getSubject();
+        if (email == null) {
+            return null;
+        }
+        String key = email.toLowerCase();
+        Long revoked = revokedAt.get(key);
+        Date issuedAt = token.getIssuedAt();
+        // iat has whole-second precision
+        if (revoked != null && (issuedAt == null || issuedAt.getTime() / 1000 < revoked / 1000)) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached = principals.get(key);
+        if (cached == null || cached.expiresAt < now || (revoked != null && cached.loadedAt < revoked)) {
+            cached = load(email, now);
+            principals.put(key, cached);
+        }
+        if (!cached.active) {
+            return null;
+        }
+        Long userId = token.getUserId();
+        if (userId != null && userId != cached.userId) {
+            return null;
+        }
+        String role = token.getRole();
+        if (role == null || !role.equalsIgnoreCase(cached.role)) {
+            return null;
+        }
+        return new User(email, "", List.of(new SimpleGrantedAuthority("ROLE_" + cached.role)));
+    }
+
+    // Call when an account is deleted, deactivated or its password changes
+    public void revoke(String email) {
+        if (email == null) {
+            return;
+        }
+        String key = email.toLowerCase();
+        revokedAt.put(key, System.currentTimeMillis());
+        principals.remove(key);
+    }
+
+    public void revokeAll(Collection<String> emails) {
+        emails.forEach(this::revoke);
+    }
+
+    // Markers older than the retention can no longer match a live token; swept here rather than on every revoke
+    @Scheduled(fixedDelayString = "${security.revocation.sweep-ms:600000}")
+    public void pruneRevocations() {
+        long cutoff = System.currentTimeMillis() - revocationRetentionHours * 3600_000L;
+        revokedAt.values().removeIf(time -> time < cutoff);
+    }
+
+    // Unknown emails are cached as inactive so a deleted account's tokens do not query on every request
+    private CachedPrincipal load(String email, long now) {
+        List<Object[]> rows = userRepository.findAuthStateByEmail(email);
+        long expiresAt = now + ttlSeconds * 1000;
+        if (rows.isEmpty()) {
+            return new CachedPrincipal(0L, null, false, now, expiresAt);
+        }
+        Object[] row = rows.get(0);
+        boolean active = !Boolean.FALSE.equals(row[2]);
+        return new CachedPrincipal((Long) row[0], (String) row[1], active, now, expiresAt);
+    }
+
+    private static final class CachedPrincipal {
+        private final long userId;
+        private final String role;
+        private final boolean active;
+        private final long loadedAt;
+        private final long expiresAt;
+
+        private CachedPrincipal(long userId, String role, boolean active, long loadedAt, long expiresAt) {
+            this.userId = userId;
+            this.role = role;
+            this.active = active;
+            this.loadedAt = loadedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.epathshala.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * The claims of a JWT whose signature and expiry were checked by {@link JwtUtil#verify(String)}.
+ * Immutable, so one instance can be shared by every request carrying the same token.
+ */
+public final class VerifiedToken {
+
+    private final String subject;
+    private final String role;
+    private final Long userId;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    VerifiedToken(Claims claims) {
+        this.subject = claims.getSubject();
+        this.role = claims.get("role", String.class);
+        Object uid = claims.get("uid");
+        this.userId = uid instanceof Number ? ((Number) uid).longValue() : null;
+        this.issuedAt = claims.getIssuedAt() != null ? new Date(claims.getIssuedAt().getTime()) : null;
+        this.expiration = claims.getExpiration() != null ? new Date(claims.getExpiration().getTime()) : null;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    // null for tokens issued before the uid claim existed
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Date getIssuedAt() {
+        return issuedAt != null ? new Date(issuedAt.getTime()) : null;
+    }
+
+    public Date getExpiration() {
+        return expiration != null ? new Date(expiration.getTime()) : null;
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+}
@@ -1,7 +1,9 @@
 package com.epathshala.service;
 
+import com.epathshala.dto.BulkDeactivateDTO;
 import com.epathshala.dto.UserDTO;
 import com.epathshala.dto.UserListDTO;
+import com.epathshala.dto.UserPageDTO;
 import com.epathshala.entity.User;
 import com.epathshala.entity.Student;
 import com.epathshala.entity.Parent;
@@ -9,10 +11,23 @@ import com.epathshala.repository.UserRepository;
 import com.epathshala.repository.StudentRepository;
 import com.epathshala.repository.ParentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import com.epathshala.repository.TeacherRepository;
@@ -22,10 +37,16 @@ import com.epathshala.repository.AcademicCalendarRepository;
 import com.epathshala.repository.AttendanceRepository;
 import com.epathshala.repository.GradeRepository;
 import com.epathshala.repository.LeaveRequestRepository;
+import com.epathshala.repository.ExamAttemptRepository;
+import com.epathshala.repository.SessionRepository;
+import com.epathshala.security.PrincipalCache;
 import com.epathshala.entity.Teacher;
 
 @Service
 public class AdminService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private UserRepository userRepository;
     @Autowired
@@ -44,6 +65,34 @@ public class AdminService {
     private GradeRepository gradeRepository;
     @Autowired
     private LeaveRequestRepository leaveRequestRepository;
+    @Autowired
+    private StudentIdCache studentIdCache;
+    @Autowired
+    private ClassRosterIndex classRosterIndex;
+    @Autowired
+    private AttendanceSummaryService attendanceSummaryService;
+    @Autowired
+    private SessionRepository sessionRepository;
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private SessionRegistry sessionRegistry;
+    @Autowired
+    private ExamAttemptRepository examAttemptRepository;
+    @Autowired
+    private ExamAnalyticsService examAnalyticsService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${admin.bulk.batch-size:500}")
+    private int bulkBatchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     public Map<String, Object> addStudent(UserDTO dto) {
         // Create User for Student
@@ -80,6 +129,7 @@ public class AdminService {
         student.setStudentClass(dto.getStudentClass());
         student.setParent(parent);
         studentRepository.save(student);
+        classRosterIndex.addStudent(student.getId(), studentUser.getName(), studentUser.getEmail(), student.getStudentClass());
 
         return Map.of("studentId", student.getId(), "parentId", parent != null ? parent.getId() : null);
     }
@@ -134,46 +184,91 @@ public class AdminService {
         return Map.of("parentId", parent.getId(), "studentId", student != null ? student.getId() : null);
     }
     public List<UserListDTO> getAllStudents() {
-        return studentRepository.findAll().stream()
-            .map(student -> new UserListDTO(
-                student.getId(),
-                student.getUser().getName(),
-                student.getUser().getEmail(),
-                student.getUser().getRole(),
-                student.getStudentClass(),
-                null,
-                null
-            ))
-            .collect(Collectors.toList());
+        return toStudentList(studentRepository.findListPage(0L, null, null, Pageable.unpaged()));
     }
     
     public List<UserListDTO> getAllTeachers() {
-        return teacherRepository.findAll().stream()
-            .map(teacher -> new UserListDTO(
-                teacher.getId(),
-                teacher.getUser().getName(),
-                teacher.getUser().getEmail(),
-                teacher.getUser().getRole(),
-                null,
-                teacher.getSubject(),
-                teacher.getAssignedClass()
-            ))
-            .collect(Collectors.toList());
+        return toTeacherList(teacherRepository.findListPage(0L, null, null, Pageable.unpaged()));
     }
     
     public List<UserListDTO> getAllParents() {
-        return parentRepository.findAll().stream()
-            .map(parent -> new UserListDTO(
-                parent.getId(),
-                parent.getUser().getName(),
-                parent.getUser().getEmail(),
-                parent.getUser().getRole(),
-                null,
-                null,
-                null
-            ))
+        return toParentList(parentRepository.findListPage(0L, null, null, Pageable.unpaged()));
+    }
+
+    // Keyset pages: each page is one indexed range read after the cursor id, whatever the page number
+    public UserPageDTO getStudentPage(Long after, Integer limit, String className, String namePrefix) {
+        int size = pageSize(limit);
+        List<Object[]> rows = studentRepository.findListPage(
+            after != null ? after : 0L, blankToNull(className), likePrefix(namePrefix), PageRequest.of(0, size + 1));
+        return toPage(toStudentList(rows), size);
+    }
+
+    public UserPageDTO getTeacherPage(Long after, Integer limit, String className, String namePrefix) {
+        int size = pageSize(limit);
+        List<Object[]> rows = teacherRepository.findListPage(
+            after != null ? after : 0L, blankToNull(className), likePrefix(namePrefix), PageRequest.of(0, size + 1));
+        return toPage(toTeacherList(rows), size);
+    }
+
+    public UserPageDTO getParentPage(Long after, Integer limit, String className, String namePrefix) {
+        int size = pageSize(limit);
+        List<Object[]> rows = parentRepository.findListPage(
+            after != null ? after : 0L, blankToNull(className), likePrefix(namePrefix), PageRequest.of(0, size + 1));
+        return toPage(toParentList(rows), size);
+    }
+
+    private List<UserListDTO> toStudentList(List<Object[]> rows) {
+        return rows.stream()
+            .map(row -> new UserListDTO((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4], null, null))
+            .collect(Collectors.toList());
+    }
+
+    private List<UserListDTO> toTeacherList(List<Object[]> rows) {
+        return rows.stream()
+            .map(row -> new UserListDTO((Long) row[0], (String) row[1], (String) row[2], (String) row[3], null, (String) row[4], (String) row[5]))
             .collect(Collectors.toList());
     }
+
+    private List<UserListDTO> toParentList(List<Object[]> rows) {
+        return rows.stream()
+            .map(row -> new UserListDTO((Long) row[0], (String) row[1], (String) row[2], (String) row[3], null, null, null))
+            .collect(Collectors.toList());
+    }
+
+    // One extra row is fetched to tell whether another page follows
+    private UserPageDTO toPage(List<UserListDTO> items, int size) {
+        boolean hasMore = items.size() > size;
+        if (hasMore) {
+            items = items.subList(0, size);
+        }
+        Long nextCursor = hasMore ? items.get(items.size() - 1).getId() : null;
+        return new UserPageDTO(items, nextCursor, hasMore);
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    // Case-insensitive "starts with" pattern; '!' escapes LIKE wildcards in the input
+    private String likePrefix(String namePrefix) {
+        String prefix = blankToNull(namePrefix);
+        if (prefix == null) {
+            return null;
+        }
+        return prefix.toLowerCase()
+            .replace("!", "!!")
+            .replace("%", "!%")
+            .replace("_", "!_") + "%";
+    }
+    // Dependent rows are removed with one DELETE per table, all in a single transaction
+    @Transactional
     public void deleteUser(Long id) {
         // Find the user first
         User user = userRepository.findById(id).orElse(null);
@@ -184,44 +279,34 @@ public class AdminService {
         // Delete associated entities based on user role
         switch (user.getRole()) {
             case "STUDENT":
-                Student student = studentRepository.findAll().stream()
-                    .filter(s -> s.getUser().getId().equals(id))
-                    .findFirst().orElse(null);
+                Student student = studentRepository.findByUser_Id(id).orElse(null);
                 if (student != null) {
                     // Delete associated records
-                    attendanceRepository.deleteAll(attendanceRepository.findAll().stream()
-                        .filter(a -> a.getStudent() != null && a.getStudent().getId().equals(student.getId()))
-                        .collect(Collectors.toList()));
-                    gradeRepository.deleteAll(gradeRepository.findAll().stream()
-                        .filter(g -> g.getStudent() != null && g.getStudent().getId().equals(student.getId()))
-                        .collect(Collectors.toList()));
-                    leaveRequestRepository.deleteAll(leaveRequestRepository.findAll().stream()
-                        .filter(l -> l.getStudent() != null && l.getStudent().getId().equals(student.getId()))
-                        .collect(Collectors.toList()));
+                    attendanceSummaryService.deleteStudent(student.getId());
+                    attendanceRepository.deleteByStudentId(student.getId());
+                    gradeRepository.deleteByStudentId(student.getId());
+                    leaveRequestRepository.deleteByStudentId(student.getId());
+                    examAnalyticsService.evictExams(examAttemptRepository.findExamIdsByStudentId(student.getId()));
                     studentRepository.delete(student);
+                    studentIdCache.evict(id);
+                    classRosterIndex.removeStudent(student.getId(), student.getStudentClass());
                 }
                 break;
                 
             case "TEACHER":
-                Teacher teacher = teacherRepository.findAll().stream()
-                    .filter(t -> t.getUser().getId().equals(id))
-                    .findFirst().orElse(null);
+                Teacher teacher = teacherRepository.findByUser_Id(id).orElse(null);
                 if (teacher != null) {
                     // Delete associated records
-                    attendanceRepository.deleteAll(attendanceRepository.findAll().stream()
-                        .filter(a -> a.getMarkedBy() != null && a.getMarkedBy().getId().equals(teacher.getId()))
-                        .collect(Collectors.toList()));
-                    gradeRepository.deleteAll(gradeRepository.findAll().stream()
-                        .filter(g -> g.getTeacher() != null && g.getTeacher().getId().equals(teacher.getId()))
-                        .collect(Collectors.toList()));
+                    List<Long> markedStudentIds = attendanceRepository.findStudentIdsByMarkedById(teacher.getId());
+                    attendanceRepository.deleteByMarkedById(teacher.getId());
+                    attendanceSummaryService.rebuildStudents(markedStudentIds);
+                    gradeRepository.deleteByTeacherId(teacher.getId());
                     teacherRepository.delete(teacher);
                 }
                 break;
                 
             case "PARENT":
-                Parent parent = parentRepository.findAll().stream()
-                    .filter(p -> p.getUser().getId().equals(id))
-                    .findFirst().orElse(null);
+                Parent parent = parentRepository.findByUser(user).orElse(null);
                 if (parent != null) {
                     parentRepository.delete(parent);
                 }
@@ -234,7 +319,52 @@ public class AdminService {
         
         // Finally delete the user
         userRepository.delete(user);
+        principalCache.revoke(user.getEmail());
     }
+
+    /**
+     * Deactivate users in batches of {@code admin.bulk.batch-size}, each in its own transaction:
+     * one UPDATE marks the batch inactive and another closes its open sessions.
+     * Deactivated users keep their records but can no longer sign in.
+     */
+    public Map<String, Object> deactivateUsers(BulkDeactivateDTO dto) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        if (dto.getUserIds() != null) {
+            dto.getUserIds().stream().filter(Objects::nonNull).forEach(userIds::add);
+        }
+        if (dto.getClassName() != null && !dto.getClassName().isBlank()) {
+            userIds.addAll(studentRepository.findUserIdsByClass(dto.getClassName()));
+            if (Boolean.TRUE.equals(dto.getIncludeParents())) {
+                userIds.addAll(studentRepository.findParentUserIdsByClass(dto.getClassName()));
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(userIds);
+        int deactivated = 0;
+        int sessionsClosed = 0;
+        int batches = 0;
+        for (int from = 0; from < ids.size(); from += bulkBatchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + bulkBatchSize, ids.size()));
+            int[] counts = transactionTemplate.execute(status -> new int[] {
+                userRepository.deactivateByIds(batch),
+                sessionRepository.invalidateUserSessions(batch, LocalDateTime.now(), "Account deactivated")
+            });
+            principalCache.revokeAll(userRepository.findEmailsByIds(batch));
+            sessionRegistry.invalidateUsers(batch);
+            deactivated += counts[0];
+            sessionsClosed += counts[1];
+            batches++;
+        }
+
+        System.out.println("🎓 Deactivated " + deactivated + " of " + ids.size() + " users in " + batches + " batches");
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requested", ids.size());
+        result.put("deactivated", deactivated);
+        result.put("sessionsClosed", sessionsClosed);
+        result.put("batches", batches);
+        return result;
+    }
+
     public Map<String, Object> assignTeacher(UserDTO dto) {
         // Find teacher by id (or email)
         com.epathshala.entity.Teacher teacher = null;
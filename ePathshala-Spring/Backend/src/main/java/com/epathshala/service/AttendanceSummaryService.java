@@ -0,0 +1,227 @@
+package com.epathshala.service;
+
+import com.epathshala.entity.AttendanceMonthlySummary;
+import com.epathshala.repository.AttendanceRepository;
+import com.epathshala.repository.AttendanceSummaryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Monthly attendance rollup (attendance_monthly_summary): total and present days
+ * per student and month, tagged with the student's class. Attendance writes pass
+ * the previous and new status of each (student, day) and the difference is added
+ * to the month's row in the same transaction, so views read a few rollup rows
+ * instead of the raw attendance table.
+ */
+@Service
+public class AttendanceSummaryService {
+
+    // Adds the deltas to an existing month row, or creates it
+    private static final String UPSERT_SUMMARY_SQL =
+        "INSERT INTO attendance_monthly_summary (student_id, class_name, month_start, total_days, present_days) " +
+        "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE total_days = total_days + VALUES(total_days), " +
+        "present_days = present_days + VALUES(present_days), class_name = VALUES(class_name)";
+
+    private static final String REBUILD_SUMMARY_SQL =
+        "INSERT INTO attendance_monthly_summary (student_id, class_name, month_start, total_days, present_days) " +
+        "SELECT a.student_id, s.student_class, DATE_FORMAT(a.date, '%Y-%m-01'), COUNT(*), " +
+        "SUM(CASE WHEN LOWER(a.status) = 'present' THEN 1 ELSE 0 END) " +
+        "FROM attendance a JOIN student s ON s.id = a.student_id ";
+
+    private static final String REBUILD_SUMMARY_GROUP_BY =
+        " GROUP BY a.student_id, s.student_class, DATE_FORMAT(a.date, '%Y-%m-01')";
+
+    @Autowired
+    private AttendanceSummaryRepository attendanceSummaryRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ClassRosterIndex classRosterIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Fills the rollup from existing attendance the first time the application runs with it
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            if (attendanceSummaryRepository.count() == 0 && attendanceRepository.count() > 0) {
+                int rows = rebuildAll();
+                System.out.println("📊 Attendance summary built: " + rows + " student-months");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Failed to build attendance summary: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Apply one day's marks to the rollup. {@code previousStatuses} holds the status each
+     * student already had on that day; students missing from it had no row yet.
+     * Must run in the transaction that writes the attendance rows, after the students were
+     * locked with {@code StudentRepository.lockClassesByIds} and their previous statuses read;
+     * otherwise concurrent marks of the same day both count as new days.
+     */
+    public void recordMarks(LocalDate date, Map<Long, String> studentClasses,
+                            Map<Long, String> previousStatuses, Map<Long, String> statuses) {
+        Date monthStart = Date.valueOf(date.withDayOfMonth(1));
+        List<Object[]> rows = new ArrayList<>(statuses.size());
+        for (Map.Entry<Long, String> entry : statuses.entrySet()) {
+            Long studentId = entry.getKey();
+            boolean existed = previousStatuses.containsKey(studentId);
+            int totalDelta = existed ? 0 : 1;
+            int presentDelta = presentCount(entry.getValue()) - (existed ? presentCount(previousStatuses.get(studentId)) : 0);
+            if (totalDelta != 0 || presentDelta != 0) {
+                rows.add(new Object[] {studentId, studentClasses.get(studentId), monthStart, totalDelta, presentDelta});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SUMMARY_SQL, rows);
+        }
+    }
+
+    public void recordMark(LocalDate date, Long studentId, String className, boolean existed,
+                           String previousStatus, String status) {
+        Map<Long, String> studentClasses = new HashMap<>();
+        studentClasses.put(studentId, className);
+        Map<Long, String> previousStatuses = new HashMap<>();
+        if (existed) {
+            previousStatuses.put(studentId, previousStatus);
+        }
+        Map<Long, String> statuses = new HashMap<>();
+        statuses.put(studentId, status);
+        recordMarks(date, studentClasses, previousStatuses, statuses);
+    }
+
+    @Transactional
+    public int rebuildAll() {
+        jdbcTemplate.update("DELETE FROM attendance_monthly_summary");
+        return jdbcTemplate.update(REBUILD_SUMMARY_SQL + REBUILD_SUMMARY_GROUP_BY);
+    }
+
+    // Recount the given students from the raw table, e.g. after their attendance rows were deleted
+    @Transactional
+    public void rebuildStudents(Collection<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        String placeholders = studentIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        Object[] ids = studentIds.toArray();
+        jdbcTemplate.update("DELETE FROM attendance_monthly_summary WHERE student_id IN (" + placeholders + ")", ids);
+        jdbcTemplate.update(REBUILD_SUMMARY_SQL + "WHERE a.student_id IN (" + placeholders + ")" + REBUILD_SUMMARY_GROUP_BY, ids);
+    }
+
+    public void deleteStudent(Long studentId) {
+        attendanceSummaryRepository.deleteByStudentId(studentId);
+    }
+
+    public Map<String, Object> getStudentSummary(Long studentId) {
+        List<Map<String, Object>> months = new ArrayList<>();
+        long total = 0;
+        long present = 0;
+        for (AttendanceMonthlySummary summary : attendanceSummaryRepository.findByStudentIdOrderByMonthStartAsc(studentId)) {
+            months.add(monthEntry(summary.getMonthStart(), summary.getTotalDays(), summary.getPresentDays()));
+            total += summary.getTotalDays();
+            present += summary.getPresentDays();
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("studentId", studentId);
+        putTotals(result, total, present, months);
+        return result;
+    }
+
+    public Map<String, Object> getClassSummary(String className) {
+        List<Map<String, Object>> months = new ArrayList<>();
+        long total = 0;
+        long present = 0;
+        for (Object[] row : attendanceSummaryRepository.summarizeClassByMonth(className)) {
+            long monthTotal = ((Number) row[1]).longValue();
+            long monthPresent = ((Number) row[2]).longValue();
+            months.add(monthEntry((LocalDate) row[0], monthTotal, monthPresent));
+            total += monthTotal;
+            present += monthPresent;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("className", className);
+        putTotals(result, total, present, months);
+        return result;
+    }
+
+    /**
+     * Students of a class whose attendance over the last {@code months} months
+     * (including the current one) is below {@code thresholdPercentage}, lowest first.
+     */
+    public List<Map<String, Object>> getChronicAbsentees(String className, int months, double thresholdPercentage) {
+        LocalDate from = YearMonth.now().minusMonths(Math.max(months, 1) - 1L).atDay(1);
+        Map<Long, String> names = classRosterIndex.getStudentNames(className);
+        List<Map<String, Object>> absentees = new ArrayList<>();
+        for (Object[] row : attendanceSummaryRepository.summarizeClassByStudent(className, from)) {
+            long total = ((Number) row[1]).longValue();
+            long present = ((Number) row[2]).longValue();
+            double percentage = percentage(present, total);
+            if (total > 0 && percentage < thresholdPercentage) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("studentId", row[0]);
+                entry.put("studentName", names.getOrDefault((Long) row[0], "Unknown"));
+                entry.put("totalDays", total);
+                entry.put("presentDays", present);
+                entry.put("absentDays", total - present);
+                entry.put("attendancePercentage", percentage);
+                absentees.add(entry);
+            }
+        }
+        absentees.sort((a, b) -> Double.compare((Double) a.get("attendancePercentage"), (Double) b.get("attendancePercentage")));
+        return absentees;
+    }
+
+    private Map<String, Object> monthEntry(LocalDate monthStart, long total, long present) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("month", YearMonth.from(monthStart).toString());
+        entry.put("totalDays", total);
+        entry.put("presentDays", present);
+        entry.put("absentDays", total - present);
+        entry.put("attendancePercentage", percentage(present, total));
+        return entry;
+    }
+
+    // trend: percentage-point change from the previous month to the latest one
+    private void putTotals(Map<String, Object> result, long total, long present, List<Map<String, Object>> months) {
+        result.put("totalDays", total);
+        result.put("presentDays", present);
+        result.put("absentDays", total - present);
+        result.put("attendancePercentage", percentage(present, total));
+        Double trend = null;
+        if (months.size() >= 2) {
+            double latest = (Double) months.get(months.size() - 1).get("attendancePercentage");
+            double previous = (Double) months.get(months.size() - 2).get("attendancePercentage");
+            trend = Math.round((latest - previous) * 100.0) / 100.0;
+        }
+        result.put("trend", trend);
+        result.put("months", Collections.unmodifiableList(months));
+    }
+
+    private static double percentage(long present, long total) {
+        return total > 0 ? Math.round(present * 10000.0 / total) / 100.0 : 0.0;
+    }
+
+    private static int presentCount(String status) {
+        return "present".equalsIgnoreCase(status) ? 1 : 0;
+    }
+}
@@ -7,6 +7,7 @@ import com.epathshala.entity.Otp;
 import com.epathshala.repository.UserRepository;
 import com.epathshala.repository.OtpRepository;
 import com.epathshala.security.JwtUtil;
+import com.epathshala.security.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -43,6 +44,8 @@ public class AuthService {
     private SessionService sessionService;
     @Autowired
     private OtpRepository otpRepository;
+    @Autowired
+    private PrincipalCache principalCache;
 
     public Map<String, Object> login(LoginRequest req) {
         User user = userRepo.findByEmail(req.getEmail())
@@ -54,7 +57,7 @@ public class AuthService {
             new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword())
         );
         UserDetails userDetails = userDetailsService.loadUserByUsername(req.getEmail());
-        String token = jwtUtil.generateToken(userDetails, user.getRole());
+        String token = jwtUtil.generateToken(userDetails, user.getRole(), user.getId());
         
         // Generate session ID
         String sessionId = UUID.randomUUID().toString();
@@ -153,6 +156,7 @@ public class AuthService {
         // Update user password
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepo.save(user);
+        principalCache.revoke(user.getEmail());
         
         System.out.println("✅ Password reset successful for " + request.getEmail());
         
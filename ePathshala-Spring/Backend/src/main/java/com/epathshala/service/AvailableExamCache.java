@@ -0,0 +1,70 @@
+package com.epathshala.service;
+
+import com.epathshala.dto.ExamDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived per-class cache of the "available exams" list served to students.
+ * Entries expire after a few seconds and are evicted whenever an exam of the
+ * class is created, activated, deactivated or changed.
+ */
+@Component
+public class AvailableExamCache {
+
+    @Value("${exam.available-cache.ttl-seconds:15}")
+    private long ttlSeconds;
+
+    private final Map<String, CachedExams> cache = new ConcurrentHashMap<>();
+
+    // Bumped before every eviction, so a list loaded before an eviction is not stored after it
+    private final AtomicLong generation = new AtomicLong();
+
+    public List<ExamDTO> get(String className, Supplier<List<ExamDTO>> loader) {
+        long now = System.currentTimeMillis();
+        CachedExams cached = cache.get(className);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.exams;
+        }
+
+        // Loaded outside the map so a slow query never blocks other classes; the first fresh entry stored wins
+        long loadGeneration = generation.get();
+        CachedExams loaded = new CachedExams(Collections.unmodifiableList(loader.get()), now + ttlSeconds * 1000);
+        CachedExams entry = cache.compute(className, (key, current) -> {
+            if (current != null && current != cached && current.expiresAt > now) {
+                return current;
+            }
+            return generation.get() == loadGeneration ? loaded : current;
+        });
+        return entry != null && entry != cached ? entry.exams : loaded.exams;
+    }
+
+    public void evict(String className) {
+        if (className != null) {
+            generation.incrementAndGet();
+            cache.remove(className);
+        }
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    private static final class CachedExams {
+        private final List<ExamDTO> exams;
+        private final long expiresAt;
+
+        private CachedExams(List<ExamDTO> exams, long expiresAt) {
+            this.exams = exams;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
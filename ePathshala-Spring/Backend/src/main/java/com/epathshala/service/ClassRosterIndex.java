@@ -0,0 +1,94 @@
+package com.epathshala.service;
+
+import com.epathshala.dto.TeacherDashboardDTO;
+import com.epathshala.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory class rosters: className -> students sorted by id, with the display
+ * data the teacher views need. A class is loaded with one query the first time
+ * it is read; AdminService keeps loaded rosters current as students are added
+ * or deleted. Rosters are immutable and replaced on every change.
+ */
+@Component
+public class ClassRosterIndex {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private final Map<String, List<TeacherDashboardDTO.StudentResponseDTO>> rosters = new ConcurrentHashMap<>();
+
+    public List<TeacherDashboardDTO.StudentResponseDTO> getRoster(String className) {
+        if (className == null) {
+            return List.of();
+        }
+        return rosters.computeIfAbsent(className, this::load);
+    }
+
+    // Student id -> name for one class, for labelling class-scoped records without joining users
+    public Map<Long, String> getStudentNames(String className) {
+        List<TeacherDashboardDTO.StudentResponseDTO> roster = getRoster(className);
+        Map<Long, String> names = new HashMap<>(roster.size() * 2);
+        for (TeacherDashboardDTO.StudentResponseDTO student : roster) {
+            names.put(student.getId(), student.getName());
+        }
+        return names;
+    }
+
+    // Only classes already loaded are updated; others pick the student up when first read
+    public void addStudent(Long studentId, String name, String email, String className) {
+        if (className == null) {
+            return;
+        }
+        TeacherDashboardDTO.StudentResponseDTO entry = new TeacherDashboardDTO.StudentResponseDTO(
+            studentId,
+            name != null ? name : "Unknown",
+            email != null ? email : "unknown@email.com",
+            className
+        );
+        rosters.computeIfPresent(className, (key, roster) -> {
+            List<TeacherDashboardDTO.StudentResponseDTO> updated = new ArrayList<>(roster.size() + 1);
+            for (TeacherDashboardDTO.StudentResponseDTO student : roster) {
+                if (!student.getId().equals(studentId)) {
+                    updated.add(student);
+                }
+            }
+            updated.add(entry);
+            updated.sort(Comparator.comparing(TeacherDashboardDTO.StudentResponseDTO::getId));
+            return Collections.unmodifiableList(updated);
+        });
+    }
+
+    public void removeStudent(Long studentId, String className) {
+        if (className == null) {
+            return;
+        }
+        rosters.computeIfPresent(className, (key, roster) -> {
+            List<TeacherDashboardDTO.StudentResponseDTO> updated = new ArrayList<>(roster);
+            updated.removeIf(student -> student.getId().equals(studentId));
+            return Collections.unmodifiableList(updated);
+        });
+    }
+
+    private List<TeacherDashboardDTO.StudentResponseDTO> load(String className) {
+        List<TeacherDashboardDTO.StudentResponseDTO> roster = new ArrayList<>();
+        for (Object[] row : studentRepository.findRosterByClass(className)) {
+            roster.add(new TeacherDashboardDTO.StudentResponseDTO(
+                (Long) row[0],
+                row[1] != null ? (String) row[1] : "Unknown",
+                row[2] != null ? (String) row[2] : "unknown@email.com",
+                className
+            ));
+        }
+        return Collections.unmodifiableList(roster);
+    }
+}
@@ -0,0 +1,262 @@
+package com.epathshala.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Retention for the session and otp tables. Closed sessions whose logout is older
+ * than {@code retention.session.days}, and used or expired OTPs created more than
+ * {@code retention.otp.days} ago, are copied to session_archive / otp_archive and
+ * removed (or only removed when {@code retention.archive=false}). Rows are handled
+ * in chunks of {@code retention.chunk-size}, one short transaction each, so the
+ * live tables are never locked for long. Runs requested through the admin API
+ * execute in the background; progress of the current run, the last run's report
+ * and totals since startup are kept for polling.
+ */
+@Service
+public class DataRetentionService {
+
+    private static final String SESSION_COLUMNS =
+        "id, session_id, user_id, login_time, last_activity_time, expiry_time, ip_address, user_agent, logout_time, logout_reason";
+
+    private static final String OTP_COLUMNS = "id, email, otp, created_at, expires_at, is_used";
+
+    // Served by idx_session_active_logout and idx_otp_created
+    private static final String SELECT_SESSION_CHUNK_SQL =
+        "SELECT id FROM session WHERE is_active = false AND logout_time < ? ORDER BY logout_time LIMIT ?";
+
+    private static final String SELECT_OTP_CHUNK_SQL =
+        "SELECT id FROM otp WHERE created_at < ? AND (is_used = true OR expires_at < ?) ORDER BY created_at LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${retention.archive:true}")
+    private boolean archive;
+
+    @Value("${retention.session.days:90}")
+    private int sessionRetentionDays;
+
+    @Value("${retention.otp.days:7}")
+    private int otpRetentionDays;
+
+    @Value("${retention.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${retention.chunk-pause-ms:100}")
+    private long chunkPauseMillis;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ExecutorService runExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong totalSessions = new AtomicLong();
+    private final AtomicLong totalOtps = new AtomicLong();
+    private final AtomicLong totalChunks = new AtomicLong();
+    private volatile Map<String, Object> lastRun;
+    private volatile RunStats currentRun;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        runExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runExecutor.shutdownNow();
+    }
+
+    @Scheduled(cron = "${retention.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        try {
+            runRetention();
+        } catch (Exception e) {
+            System.err.println("❌ Data retention run failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Purge everything past the horizons now, on the caller's thread. Returns the run's
+     * report, or null when a run is already in progress.
+     */
+    public Map<String, Object> runRetention() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        return execute(new RunStats());
+    }
+
+    /**
+     * Starts a run in the background and returns its initial state, or null when a run
+     * is already in progress. Progress and the final report are served by getStats.
+     */
+    public Map<String, Object> startRetention() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        RunStats stats = new RunStats();
+        currentRun = stats;
+        try {
+            runExecutor.submit(() -> {
+                try {
+                    execute(stats);
+                } catch (Exception e) {
+                    System.err.println("❌ Data retention run failed: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            currentRun = null;
+            running.set(false);
+            throw e;
+        }
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("status", "RUNNING");
+        state.put("startedAt", stats.startedAt);
+        state.put("mode", archive ? "archive" : "delete");
+        return state;
+    }
+
+    // Caller holds the running flag; it is released when the run ends
+    private Map<String, Object> execute(RunStats stats) {
+        currentRun = stats;
+        long started = System.currentTimeMillis();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", stats.startedAt);
+        report.put("mode", archive ? "archive" : "delete");
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp sessionCutoff = Timestamp.valueOf(now.minusDays(sessionRetentionDays));
+            Timestamp otpCutoff = Timestamp.valueOf(now.minusDays(otpRetentionDays));
+
+            purge("session", "session_archive", SESSION_COLUMNS, stats, rows -> stats.sessions += rows,
+                () -> jdbcTemplate.queryForList(SELECT_SESSION_CHUNK_SQL, Long.class, sessionCutoff, chunkSize));
+            purge("otp", "otp_archive", OTP_COLUMNS, stats, rows -> stats.otps += rows,
+                () -> jdbcTemplate.queryForList(SELECT_OTP_CHUNK_SQL, Long.class, otpCutoff, Timestamp.valueOf(now), chunkSize));
+            report.put("status", "COMPLETED");
+        } catch (Exception e) {
+            report.put("status", "FAILED");
+            report.put("error", String.valueOf(e.getMessage()));
+            throw e;
+        } finally {
+            long elapsed = System.currentTimeMillis() - started;
+            totalSessions.addAndGet(stats.sessions);
+            totalOtps.addAndGet(stats.otps);
+            totalChunks.addAndGet(stats.chunks);
+            report.put("sessionsProcessed", stats.sessions);
+            report.put("otpsProcessed", stats.otps);
+            report.put("chunks", stats.chunks);
+            report.put("durationMs", elapsed);
+            lastRun = report;
+            currentRun = null;
+            running.set(false);
+            System.out.println("🧹 Data retention: " + stats.sessions + " sessions, " + stats.otps + " OTPs "
+                + (archive ? "archived" : "deleted") + " in " + stats.chunks + " chunks (" + elapsed + " ms)");
+        }
+        return report;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("running", running.get());
+        result.put("mode", archive ? "archive" : "delete");
+        result.put("sessionRetentionDays", sessionRetentionDays);
+        result.put("otpRetentionDays", otpRetentionDays);
+        result.put("chunkSize", chunkSize);
+        result.put("totalSessionsProcessed", totalSessions.get());
+        result.put("totalOtpsProcessed", totalOtps.get());
+        result.put("totalChunks", totalChunks.get());
+        RunStats current = currentRun;
+        if (current != null) {
+            Map<String, Object> progress = new LinkedHashMap<>();
+            progress.put("startedAt", current.startedAt);
+            progress.put("sessionsProcessed", current.sessions);
+            progress.put("otpsProcessed", current.otps);
+            progress.put("chunks", current.chunks);
+            result.put("currentRun", progress);
+        }
+        result.put("lastRun", lastRun);
+        return result;
+    }
+
+    // Handles chunks until the selector comes back short; each chunk commits on its own and is counted as it commits
+    private void purge(String table, String archiveTable, String columns, RunStats stats,
+                       LongConsumer processed, ChunkSelector selector) {
+        while (true) {
+            List<Long> ids = selector.next();
+            if (ids.isEmpty()) {
+                break;
+            }
+            String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+            Object[] args = ids.toArray();
+            Integer deleted = transactionTemplate.execute(status -> {
+                if (archive) {
+                    int archived = jdbcTemplate.update("INSERT INTO " + archiveTable + " (" + columns + ", archived_at) " +
+                        "SELECT " + columns + ", NOW() FROM " + table + " WHERE id IN (" + placeholders + ")", args);
+                    // Live rows are only removed once every one of them is in the archive
+                    if (archived != ids.size()) {
+                        throw new RuntimeException("Archived " + archived + " of " + ids.size() + " " + table
+                            + " rows; chunk rolled back");
+                    }
+                }
+                return jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (" + placeholders + ")", args);
+            });
+            processed.accept(deleted != null ? deleted : 0);
+            stats.chunks++;
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            pause();
+        }
+    }
+
+    // Gives other writers a turn between chunks
+    private void pause() {
+        if (chunkPauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(chunkPauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Data retention interrupted");
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkSelector {
+        List<Long> next();
+    }
+
+    // Written by the run's thread only; volatile so getStats can report progress
+    private static final class RunStats {
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile long sessions;
+        private volatile long otps;
+        private volatile long chunks;
+    }
+}
@@ -0,0 +1,313 @@
+package com.epathshala.service;
+
+import com.epathshala.entity.ExamAnswerKey;
+import com.epathshala.repository.ExamAnswerRepository;
+import com.epathshala.repository.ExamAttemptRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Running per-exam and per-question result statistics.
+ * An exam's aggregates are built from the database the first time they are read
+ * and then updated as each attempt commits, so faculty dashboards never rescan
+ * exam_attempts or exam_answers. A rebuild runs outside the map under a per-exam
+ * lock; attempts committing meanwhile are queued and applied once it is published.
+ * Aggregates not read for {@code exam.analytics.idle-minutes} are dropped (and
+ * rebuilt if read again), as are those of deactivated or deleted exams.
+ */
+@Service
+public class ExamAnalyticsService {
+
+    private static final String[] OPTIONS = {"A", "B", "C", "D"};
+
+    private static final int HISTOGRAM_BUCKETS = 10;
+
+    @Autowired
+    private ExamAttemptRepository examAttemptRepository;
+
+    @Autowired
+    private ExamAnswerRepository examAnswerRepository;
+
+    @Autowired
+    private ExamAnswerKeyCache examAnswerKeyCache;
+
+    private final Map<Long, ExamStats> examStats = new ConcurrentHashMap<>();
+    // examId -> attempts that committed while that exam's aggregates were being rebuilt
+    private final Map<Long, Queue<Consumer<ExamStats>>> pendingAttempts = new ConcurrentHashMap<>();
+    // Striped, so the locks stay bounded however many exams are ever read
+    private final Object[] rebuildLocks = new Object[64];
+
+    @Value("${exam.analytics.idle-minutes:60}")
+    private long idleMinutes;
+
+    public ExamAnalyticsService() {
+        for (int i = 0; i < rebuildLocks.length; i++) {
+            rebuildLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Adds a graded attempt once the surrounding transaction commits.
+     * Exams whose aggregates have not been built yet are skipped; the rebuild will include the attempt.
+     */
+    public void recordAttempt(Long examId, Long attemptId, double percentage,
+                              long[] questionIds, String[] selectedAnswers, boolean[] correct) {
+        Consumer<ExamStats> apply = stats -> {
+            synchronized (stats) {
+                if (stats.addAttempt(attemptId, percentage)) {
+                    for (int i = 0; i < questionIds.length; i++) {
+                        stats.addAnswer(questionIds[i], percentage, selectedAnswers[i], correct[i]);
+                    }
+                }
+            }
+        };
+        Runnable record = () -> {
+            Queue<Consumer<ExamStats>> queued = pendingAttempts.computeIfPresent(examId, (id, queue) -> {
+                queue.add(apply);
+                return queue;
+            });
+            if (queued == null) {
+                ExamStats stats = examStats.get(examId);
+                if (stats != null) {
+                    apply.accept(stats);
+                }
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record.run();
+                }
+            });
+        } else {
+            record.run();
+        }
+    }
+
+    // Also evicted after commit, so a rebuild that read the data before the change is not kept
+    public void evict(Long examId) {
+        evictExams(List.of(examId));
+    }
+
+    public void evictExams(Collection<Long> examIds) {
+        Runnable evict = () -> examIds.forEach(examId -> {
+            examStats.remove(examId);
+            pendingAttempts.remove(examId);
+        });
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${exam.analytics.idle-check-ms:300000}")
+    public void evictIdleStats() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000L;
+        int before = examStats.size();
+        examStats.values().removeIf(stats -> stats.lastReadAt < cutoff);
+        int evicted = before - examStats.size();
+        if (evicted > 0) {
+            System.out.println("🧹 Dropped analytics of " + evicted + " idle exams");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getExamSummary(Long examId) {
+        ExamStats stats = getStats(examId);
+        synchronized (stats) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("examId", examId);
+            summary.put("attemptCount", stats.attempts);
+            summary.put("meanPercentage", stats.mean());
+            summary.put("stdDevPercentage", stats.stdDev());
+            summary.put("minPercentage", stats.attempts > 0 ? stats.min : null);
+            summary.put("maxPercentage", stats.attempts > 0 ? stats.max : null);
+
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                int from = i * (100 / HISTOGRAM_BUCKETS);
+                histogram.put(from + "-" + (from + 100 / HISTOGRAM_BUCKETS), stats.histogram[i]);
+            }
+            summary.put("scoreHistogram", histogram);
+            return summary;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getQuestionStatistics(Long examId) {
+        ExamStats stats = getStats(examId);
+        ExamAnswerKey answerKey = examAnswerKeyCache.getOrLoad(examId);
+
+        synchronized (stats) {
+            List<Map<String, Object>> result = new ArrayList<>(answerKey.getQuestionCount());
+            for (int i = 0; i < answerKey.getQuestionCount(); i++) {
+                long questionId = answerKey.getQuestionId(i);
+                QuestionStats question = stats.questions.getOrDefault(questionId, new QuestionStats());
+
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("questionId", questionId);
+                row.put("topic", answerKey.getTopic(i));
+                row.put("difficulty", answerKey.getDifficulty(i));
+                row.put("answered", question.answered);
+                row.put("unanswered", stats.attempts - question.answered);
+                row.put("correct", question.correct);
+                // Share of all attempts that got the question right
+                row.put("difficultyIndex", stats.attempts > 0 ? (double) question.correct / stats.attempts : null);
+                row.put("discriminationIndex", stats.discrimination(question));
+
+                Map<String, Long> optionCounts = new LinkedHashMap<>();
+                for (int option = 0; option < OPTIONS.length; option++) {
+                    optionCounts.put(OPTIONS[option], question.optionCounts[option]);
+                }
+                row.put("optionCounts", optionCounts);
+                result.add(row);
+            }
+            return result;
+        }
+    }
+
+    private ExamStats getStats(Long examId) {
+        ExamStats stats = examStats.get(examId);
+        if (stats != null) {
+            stats.lastReadAt = System.currentTimeMillis();
+            return stats;
+        }
+        synchronized (rebuildLocks[(int) Math.floorMod(examId, (long) rebuildLocks.length)]) {
+            stats = examStats.get(examId);
+            if (stats != null) {
+                stats.lastReadAt = System.currentTimeMillis();
+                return stats;
+            }
+            Queue<Consumer<ExamStats>> queue = new ConcurrentLinkedQueue<>();
+            pendingAttempts.put(examId, queue);
+            ExamStats rebuilt;
+            try {
+                rebuilt = rebuild(examId);
+            } catch (RuntimeException e) {
+                pendingAttempts.remove(examId, queue);
+                throw e;
+            }
+            examStats.put(examId, rebuilt);
+            if (pendingAttempts.remove(examId, queue)) {
+                // Anything queued before the removal is applied here; later commits find the published stats
+                queue.forEach(apply -> apply.accept(rebuilt));
+            } else {
+                // Evicted during the rebuild: serve this read, let the next one rebuild
+                examStats.remove(examId, rebuilt);
+            }
+            return rebuilt;
+        }
+    }
+
+    // One pass over the exam's completed attempts; the answer rows are streamed, not materialized
+    private ExamStats rebuild(Long examId) {
+        ExamStats stats = new ExamStats();
+        for (Object[] row : examAttemptRepository.findCompletedScoresByExamId(examId)) {
+            stats.addAttempt((Long) row[0], row[1] != null ? (Double) row[1] : 0.0);
+        }
+        // Attempts that committed after the first query are added later by recordAttempt
+        try (Stream<Object[]> answers = examAnswerRepository.streamCompletedAnswersByExamId(examId)) {
+            answers.filter(row -> stats.attemptIds.contains((Long) row[0]))
+                    .forEach(row -> stats.addAnswer((Long) row[2], row[1] != null ? (Double) row[1] : 0.0,
+                            (String) row[3], Boolean.TRUE.equals(row[4])));
+        }
+        return stats;
+    }
+
+    private static final class ExamStats {
+        private final Set<Long> attemptIds = new HashSet<>();
+        private final Map<Long, QuestionStats> questions = new HashMap<>();
+        private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+        private volatile long lastReadAt = System.currentTimeMillis();
+        private long attempts;
+        private double sum;
+        private double sumOfSquares;
+        private double min = Double.MAX_VALUE;
+        private double max = -Double.MAX_VALUE;
+
+        // Returns false for an attempt already counted (a rebuild racing with a commit)
+        synchronized boolean addAttempt(Long attemptId, double percentage) {
+            if (!attemptIds.add(attemptId)) {
+                return false;
+            }
+            attempts++;
+            sum += percentage;
+            sumOfSquares += percentage * percentage;
+            min = Math.min(min, percentage);
+            max = Math.max(max, percentage);
+            int bucket = (int) Math.floor(percentage / (100.0 / HISTOGRAM_BUCKETS));
+            histogram[Math.max(0, Math.min(HISTOGRAM_BUCKETS - 1, bucket))]++;
+            return true;
+        }
+
+        synchronized void addAnswer(Long questionId, double percentage, String selectedAnswer, boolean correct) {
+            QuestionStats question = questions.computeIfAbsent(questionId, id -> new QuestionStats());
+            question.answered++;
+            byte option = ExamAnswerKey.encodeOption(selectedAnswer);
+            if (option > 0) {
+                question.optionCounts[option - 1]++;
+            }
+            if (correct) {
+                question.correct++;
+                question.correctScoreSum += percentage;
+            }
+        }
+
+        double mean() {
+            return attempts > 0 ? sum / attempts : 0.0;
+        }
+
+        double stdDev() {
+            if (attempts == 0) {
+                return 0.0;
+            }
+            double mean = mean();
+            return Math.sqrt(Math.max(0.0, sumOfSquares / attempts - mean * mean));
+        }
+
+        // Point-biserial correlation between getting the question right and the attempt score
+        Double discrimination(QuestionStats question) {
+            double stdDev = stdDev();
+            if (question.correct == 0 || question.correct == attempts || stdDev == 0.0) {
+                return null;
+            }
+            double p = (double) question.correct / attempts;
+            double meanCorrect = question.correctScoreSum / question.correct;
+            double meanOthers = (sum - question.correctScoreSum) / (attempts - question.correct);
+            return (meanCorrect - meanOthers) / stdDev * Math.sqrt(p * (1 - p));
+        }
+    }
+
+    private static final class QuestionStats {
+        private final long[] optionCounts = new long[OPTIONS.length];
+        private long answered;
+        private long correct;
+        private double correctScoreSum;
+    }
+}
@@ -0,0 +1,62 @@
+package com.epathshala.service;
+
+import com.epathshala.entity.Exam;
+import com.epathshala.entity.ExamAnswerKey;
+import com.epathshala.repository.ExamQuestionRepository;
+import com.epathshala.repository.ExamRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answer keys of active exams, keyed by exam id.
+ * Populated on activation (or the first use), evicted when the exam
+ * is deactivated, deleted or its questions change.
+ */
+@Component
+public class ExamAnswerKeyCache {
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private ExamQuestionRepository examQuestionRepository;
+
+    private final Map<Long, ExamAnswerKey> answerKeys = new ConcurrentHashMap<>();
+
+    public ExamAnswerKey get(Long examId) {
+        return answerKeys.get(examId);
+    }
+
+    // Active exams keep their answer key in memory; inactive ones are read on demand
+    public ExamAnswerKey getOrLoad(Exam exam) {
+        if (Boolean.TRUE.equals(exam.getIsActive())) {
+            return answerKeys.computeIfAbsent(exam.getId(), id -> load(exam));
+        }
+        return load(exam);
+    }
+
+    public ExamAnswerKey getOrLoad(Long examId) {
+        ExamAnswerKey answerKey = answerKeys.get(examId);
+        if (answerKey != null) {
+            return answerKey;
+        }
+        Exam exam = examRepository.findById(examId)
+                .orElseThrow(() -> new RuntimeException("Exam not found"));
+        return getOrLoad(exam);
+    }
+
+    public void refresh(Exam exam) {
+        answerKeys.put(exam.getId(), load(exam));
+    }
+
+    public void evict(Long examId) {
+        answerKeys.remove(examId);
+    }
+
+    private ExamAnswerKey load(Exam exam) {
+        return ExamAnswerKey.of(exam, examQuestionRepository.findByExamIdOrderByCreatedAtAsc(exam.getId()));
+    }
+}
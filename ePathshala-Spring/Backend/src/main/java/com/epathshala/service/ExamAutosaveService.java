@@ -0,0 +1,236 @@
+package com.epathshala.service;
+
+import com.epathshala.entity.ExamAnswer;
+import com.epathshala.entity.ExamAnswerKey;
+import com.epathshala.entity.ExamAttempt;
+import com.epathshala.repository.ExamAnswerRepository;
+import com.epathshala.repository.ExamAttemptRepository;
+import com.epathshala.repository.ExamQuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side autosave of in-progress exam answers.
+ * Per-question changes are buffered per attempt and coalesced, so only the latest
+ * choice for each question is written when the buffer is flushed on a timer or
+ * once an attempt has {@code exam.autosave.flush-threshold} pending changes.
+ * Flushes lock the attempt row before taking the buffered changes, the same lock
+ * submitExam holds until it commits, so flushes of an attempt are applied in order
+ * and nothing is written once it is completed. Changes taken by a flush whose
+ * transaction rolls back are put back in the buffer.
+ * Attempts are forgotten when submitted or once their time (plus
+ * {@code exam.timer.expired-retention-minutes}) has run out.
+ */
+@Service
+public class ExamAutosaveService {
+
+    @Autowired
+    private ExamAttemptRepository examAttemptRepository;
+
+    @Autowired
+    private ExamAnswerRepository examAnswerRepository;
+
+    @Autowired
+    private ExamQuestionRepository examQuestionRepository;
+
+    @Autowired
+    private ExamAnswerKeyCache examAnswerKeyCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${exam.autosave.flush-threshold:20}")
+    private int flushThreshold;
+
+    @Value("${exam.timer.expired-retention-minutes:10}")
+    private long expiredRetentionMinutes;
+
+    private TransactionTemplate transactionTemplate;
+
+    // attemptId -> questionId -> latest selected option; inner maps are only touched inside compute()/remove()
+    private final Map<Long, Map<Long, String>> pendingAnswers = new ConcurrentHashMap<>();
+
+    // "examId:studentId" -> the in-progress attempt
+    private final Map<String, ActiveAttempt> activeAttempts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Map<String, Object> saveAnswers(Long examId, Long studentId, Map<Long, String> changes) {
+        ExamAnswerKey answerKey = examAnswerKeyCache.getOrLoad(examId);
+        for (Long questionId : changes.keySet()) {
+            if (answerKey.indexOf(questionId) < 0) {
+                throw new RuntimeException("Question not found: " + questionId);
+            }
+        }
+
+        Long attemptId = resolveAttemptId(examId, studentId);
+        // Decided inside compute(), the only place the inner map is read while other saves may be merging
+        boolean[] full = new boolean[1];
+        pendingAnswers.compute(attemptId, (id, current) -> {
+            Map<Long, String> merged = current != null ? current : new HashMap<>();
+            merged.putAll(changes);
+            full[0] = merged.size() >= flushThreshold;
+            return merged;
+        });
+        if (full[0]) {
+            flush(attemptId);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("attemptId", attemptId);
+        response.put("saved", changes.size());
+        return response;
+    }
+
+    // Joins the caller's transaction, so submitExam sees the flushed answers
+    public void flush(Long attemptId) {
+        if (!pendingAnswers.containsKey(attemptId)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> writeAnswers(attemptId));
+    }
+
+    // After commit when called in a transaction, so a save arriving mid-submit cannot re-register the attempt
+    public void forgetAttempt(Long examId, Long studentId, Long attemptId) {
+        Runnable forget = () -> {
+            activeAttempts.remove(examId + ":" + studentId);
+            pendingAnswers.remove(attemptId);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forget.run();
+                }
+            });
+        } else {
+            forget.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${exam.autosave.flush-interval-ms:5000}")
+    public void flushAll() {
+        // Abandoned attempts are dropped once their time has run out; their last changes are flushed below
+        LocalDateTime now = LocalDateTime.now();
+        activeAttempts.values().removeIf(active -> active.expiresAt.isBefore(now));
+
+        for (Long attemptId : new ArrayList<>(pendingAnswers.keySet())) {
+            try {
+                flush(attemptId);
+            } catch (Exception e) {
+                System.err.println("Error flushing autosaved answers for attempt " + attemptId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Long resolveAttemptId(Long examId, Long studentId) {
+        ActiveAttempt active = activeAttempts.get(examId + ":" + studentId);
+        if (active == null) {
+            List<Object[]> rows = examAttemptRepository.findAutosaveStateByExamIdAndStudentId(examId, studentId);
+            if (rows.isEmpty()) {
+                throw new RuntimeException("No active attempt found");
+            }
+            Object[] row = rows.get(0);
+            if (!"IN_PROGRESS".equals(row[1])) {
+                throw new RuntimeException("Exam has already been submitted");
+            }
+            LocalDateTime expiresAt = ((LocalDateTime) row[2])
+                    .plusMinutes(row[3] != null ? (Integer) row[3] : 0)
+                    .plusMinutes(expiredRetentionMinutes);
+            if (expiresAt.isBefore(LocalDateTime.now())) {
+                throw new RuntimeException("Exam time is over");
+            }
+            active = new ActiveAttempt((Long) row[0], expiresAt);
+            activeAttempts.put(examId + ":" + studentId, active);
+        }
+        return active.attemptId;
+    }
+
+    // Runs in a transaction; the buffered changes are only taken once the attempt row is locked
+    private void writeAnswers(Long attemptId) {
+        ExamAttempt attempt = examAttemptRepository.findByIdForUpdate(attemptId).orElse(null);
+        if (attempt == null || !attempt.isInProgress()) {
+            activeAttempts.values().removeIf(active -> active.attemptId.equals(attemptId));
+            pendingAnswers.remove(attemptId);
+            return;
+        }
+
+        Map<Long, String> pending = pendingAnswers.remove(attemptId);
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        // If the write does not commit, the changes go back under any newer ones saved meanwhile
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    restore(attemptId, pending);
+                }
+            }
+        });
+
+        Map<Long, ExamAnswer> saved = new HashMap<>();
+        for (ExamAnswer answer : examAnswerRepository.findByAttemptIdOrderByCreatedAtAsc(attemptId)) {
+            saved.put(answer.getQuestion().getId(), answer);
+        }
+
+        // Existing rows are updated by dirty checking; new ones are inserted in one batch
+        List<ExamAnswer> newAnswers = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : pending.entrySet()) {
+            ExamAnswer answer = saved.get(entry.getKey());
+            if (entry.getValue() == null || entry.getValue().isBlank()) {
+                // A cleared choice removes the saved answer
+                if (answer != null) {
+                    examAnswerRepository.delete(answer);
+                }
+            } else if (answer != null) {
+                answer.setSelectedAnswer(entry.getValue());
+            } else {
+                answer = new ExamAnswer();
+                answer.setAttempt(attempt);
+                answer.setQuestion(examQuestionRepository.getReferenceById(entry.getKey()));
+                answer.setSelectedAnswer(entry.getValue());
+                newAnswers.add(answer);
+            }
+        }
+        examAnswerRepository.saveAll(newAnswers);
+    }
+
+    private void restore(Long attemptId, Map<Long, String> drained) {
+        pendingAnswers.compute(attemptId, (id, current) -> {
+            Map<Long, String> merged = new HashMap<>(drained);
+            if (current != null) {
+                merged.putAll(current);
+            }
+            return merged;
+        });
+        System.err.println("Autosave write for attempt " + attemptId + " did not commit; " + drained.size() + " answers kept for retry");
+    }
+
+    private static final class ActiveAttempt {
+        private final Long attemptId;
+        private final LocalDateTime expiresAt;
+
+        private ActiveAttempt(Long attemptId, LocalDateTime expiresAt) {
+            this.attemptId = attemptId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
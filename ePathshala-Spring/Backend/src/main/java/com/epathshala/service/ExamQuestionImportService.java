@@ -0,0 +1,323 @@
+package com.epathshala.service;
+
+import com.epathshala.dto.ExamQuestionDTO;
+import com.epathshala.entity.Exam;
+import com.epathshala.entity.ExamAnswerKey;
+import com.epathshala.entity.ExamQuestion;
+import com.epathshala.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams a question bank (CSV with a header row, or JSON lines) into an exam.
+ * Rows are validated as they are read and inserted in JDBC batches of
+ * {@code exam.question-import.batch-size}, each batch in its own transaction;
+ * invalid rows are reported with their line number and skipped.
+ */
+@Service
+public class ExamQuestionImportService {
+
+    public static final String[] CSV_COLUMNS = {
+        "questionText", "optionA", "optionB", "optionC", "optionD", "correctAnswer", "marks", "difficulty", "topic"
+    };
+
+    private static final Set<String> DIFFICULTIES = Set.of("EASY", "MEDIUM", "HARD");
+
+    private static final int MAX_REPORTED_ERRORS = 500;
+
+    @Autowired
+    private ExamService examService;
+
+    @Autowired
+    private ExamAnswerKeyCache examAnswerKeyCache;
+
+    @Autowired
+    private AvailableExamCache availableExamCache;
+
+    @Autowired
+    private ExamQuestionPoolCache examQuestionPoolCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${exam.question-import.batch-size:200}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Map<String, Object> importQuestions(Long examId, String format, InputStream inputStream) throws IOException {
+        // Checked up front to reject the upload early; each batch checks again under the exam lock
+        String assignedClass = transactionTemplate.execute(status -> {
+            Exam exam = examService.lockForQuestionChange(examId);
+            return exam.getCourse() != null ? exam.getCourse().getAssignedClass() : null;
+        });
+
+        ImportReport report = new ImportReport();
+        Batch batch = new Batch();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        try {
+            if ("ndjson".equalsIgnoreCase(format) || "jsonl".equalsIgnoreCase(format)) {
+                readJsonLines(examId, reader, batch, report);
+            } else {
+                readCsv(examId, reader, batch, report);
+            }
+            insertBatch(examId, batch, report);
+        } finally {
+            if (report.imported > 0) {
+                examAnswerKeyCache.evict(examId);
+                examQuestionPoolCache.evict(examId);
+                if (assignedClass != null) {
+                    availableExamCache.evict(assignedClass);
+                } else {
+                    availableExamCache.evictAll();
+                }
+            }
+        }
+
+        System.out.println("📥 Imported " + report.imported + " questions into exam " + examId
+                + " (" + report.failed + " rows rejected)");
+        return report.toMap(examId);
+    }
+
+    private void readJsonLines(Long examId, BufferedReader reader, Batch batch, ImportReport report) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.rows++;
+            try {
+                addRow(examId, objectMapper.readValue(line, ExamQuestionDTO.class), lineNumber, batch, report);
+            } catch (JsonProcessingException e) {
+                report.addError(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(Long examId, BufferedReader reader, Batch batch, ImportReport report) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            throw new RuntimeException("CSV file is empty");
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(), i);
+        }
+        int[] positions = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            Integer position = columns.get(CSV_COLUMNS[i].toLowerCase());
+            if (position == null) {
+                throw new RuntimeException("Missing CSV column: " + CSV_COLUMNS[i]);
+            }
+            positions[i] = position;
+        }
+
+        while (true) {
+            long lineNumber = csv.getLineNumber() + 1;
+            List<String> record = csv.readRecord();
+            if (record == null) {
+                break;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            report.rows++;
+
+            String[] values = new String[CSV_COLUMNS.length];
+            for (int i = 0; i < positions.length; i++) {
+                values[i] = positions[i] < record.size() ? record.get(positions[i]).trim() : null;
+            }
+
+            ExamQuestionDTO dto = new ExamQuestionDTO();
+            dto.setQuestionText(values[0]);
+            dto.setOptionA(values[1]);
+            dto.setOptionB(values[2]);
+            dto.setOptionC(values[3]);
+            dto.setOptionD(values[4]);
+            dto.setCorrectAnswer(values[5]);
+            dto.setDifficulty(values[7]);
+            dto.setTopic(values[8]);
+            try {
+                dto.setMarks(values[6] == null || values[6].isEmpty() ? null : Integer.valueOf(values[6]));
+            } catch (NumberFormatException e) {
+                report.addError(lineNumber, "Invalid marks: " + values[6]);
+                continue;
+            }
+            addRow(examId, dto, lineNumber, batch, report);
+        }
+    }
+
+    private void addRow(Long examId, ExamQuestionDTO dto, long lineNumber, Batch batch, ImportReport report) {
+        String error = validate(dto);
+        if (error != null) {
+            report.addError(lineNumber, error);
+            return;
+        }
+        batch.add(dto, lineNumber);
+        if (batch.size() >= batchSize) {
+            insertBatch(examId, batch, report);
+        }
+    }
+
+    private String validate(ExamQuestionDTO dto) {
+        Set<ConstraintViolation<ExamQuestionDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+        }
+        if (isBlank(dto.getOptionA()) || isBlank(dto.getOptionB()) || isBlank(dto.getOptionC()) || isBlank(dto.getOptionD())) {
+            return "All four options are required";
+        }
+        if (ExamAnswerKey.encodeOption(dto.getCorrectAnswer()) == 0) {
+            return "Correct answer must be A, B, C or D";
+        }
+        dto.setCorrectAnswer(dto.getCorrectAnswer().toUpperCase());
+        if (isBlank(dto.getDifficulty()) || !DIFFICULTIES.contains(dto.getDifficulty().toUpperCase())) {
+            return "Difficulty must be EASY, MEDIUM or HARD";
+        }
+        dto.setDifficulty(dto.getDifficulty().toUpperCase());
+        if (isBlank(dto.getTopic())) {
+            return "Topic is required";
+        }
+        return null;
+    }
+
+    private void insertBatch(Long examId, Batch batch, ImportReport report) {
+        if (batch.size() == 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(examId, batch.questions));
+            report.imported += batch.size();
+        } catch (Exception e) {
+            // Retry the batch row by row so one bad row does not reject the rest
+            for (int i = 0; i < batch.size(); i++) {
+                ExamQuestionDTO question = batch.questions.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(examId, List.of(question)));
+                    report.imported++;
+                } catch (Exception rowError) {
+                    Throwable cause = rowError;
+                    while (cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    report.addError(batch.lineNumbers.get(i), cause.getMessage());
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    // Clearing after the flush keeps the persistence context small across the whole import
+    private void persist(Long examId, List<ExamQuestionDTO> questions) {
+        Exam exam = examService.lockForQuestionChange(examId);
+        for (ExamQuestionDTO dto : questions) {
+            ExamQuestion question = new ExamQuestion(
+                dto.getQuestionText(),
+                dto.getOptionA(),
+                dto.getOptionB(),
+                dto.getOptionC(),
+                dto.getOptionD(),
+                dto.getCorrectAnswer(),
+                dto.getMarks(),
+                dto.getDifficulty(),
+                dto.getTopic()
+            );
+            question.setExam(exam);
+            entityManager.persist(question);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static final class Batch {
+        private final List<ExamQuestionDTO> questions = new ArrayList<>();
+        private final List<Long> lineNumbers = new ArrayList<>();
+
+        private void add(ExamQuestionDTO question, long lineNumber) {
+            questions.add(question);
+            lineNumbers.add(lineNumber);
+        }
+
+        private int size() {
+            return questions.size();
+        }
+
+        private void clear() {
+            questions.clear();
+            lineNumbers.clear();
+        }
+    }
+
+    private static final class ImportReport {
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+        private long rows;
+        private long imported;
+        private long failed;
+
+        private void addError(long lineNumber, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("line", lineNumber);
+                error.put("message", message);
+                errors.add(error);
+            }
+        }
+
+        private Map<String, Object> toMap(Long examId) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("examId", examId);
+            result.put("totalRows", rows);
+            result.put("imported", imported);
+            result.put("failed", failed);
+            result.put("errors", errors);
+            result.put("errorsTruncated", failed > errors.size());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.epathshala.service;
+
+import com.epathshala.dto.ExamDTO;
+import com.epathshala.dto.ExamQuestionDTO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * The student-facing questions of one exam (without correct answers) and the
+ * exam header they are served with. Papers are drawn deterministically from a
+ * seed: the same seed always yields the same questions in the same order, so a
+ * student's paper is regenerated on demand instead of being stored.
+ * The DTOs are shared by every paper and must be treated as read-only.
+ */
+public final class ExamQuestionPool {
+
+    private final ExamDTO header;
+    private final LocalDateTime examStartTime;
+    private final Integer questionsPerPaper;
+    private final List<ExamQuestionDTO> questions;
+    // Questions grouped by (topic, difficulty), in a fixed order so draws are reproducible
+    private final List<List<ExamQuestionDTO>> strata;
+
+    public ExamQuestionPool(ExamDTO header, LocalDateTime examStartTime, Integer questionsPerPaper,
+                            List<ExamQuestionDTO> questions) {
+        this.header = header;
+        this.examStartTime = examStartTime;
+        this.questionsPerPaper = questionsPerPaper;
+        this.questions = Collections.unmodifiableList(new ArrayList<>(questions));
+
+        Map<String, List<ExamQuestionDTO>> byStratum = new TreeMap<>();
+        for (ExamQuestionDTO question : this.questions) {
+            String key = question.getTopic() + '\u0000' + question.getDifficulty();
+            byStratum.computeIfAbsent(key, k -> new ArrayList<>()).add(question);
+        }
+        this.strata = new ArrayList<>(byStratum.values());
+    }
+
+    /**
+     * Draw a paper. Without a seed every question is returned in creation order.
+     * With one, the paper is shuffled and, when {@code questionsPerPaper} is smaller than the pool,
+     * sampled so that each (topic, difficulty) group keeps its share of the pool.
+     */
+    public List<ExamQuestionDTO> draw(Long seed) {
+        if (seed == null) {
+            return questions;
+        }
+
+        Random random = new Random(seed);
+        int poolSize = questions.size();
+        int count = questionsPerPaper != null ? Math.min(questionsPerPaper, poolSize) : poolSize;
+
+        List<ExamQuestionDTO> paper;
+        if (count >= poolSize) {
+            paper = new ArrayList<>(questions);
+        } else {
+            paper = new ArrayList<>(count);
+            int[] quotas = allocate(count);
+            for (int i = 0; i < strata.size(); i++) {
+                List<ExamQuestionDTO> stratum = new ArrayList<>(strata.get(i));
+                Collections.shuffle(stratum, random);
+                paper.addAll(stratum.subList(0, quotas[i]));
+            }
+        }
+        Collections.shuffle(paper, random);
+        return paper;
+    }
+
+    // Largest-remainder split of count across the strata, proportional to their sizes
+    private int[] allocate(int count) {
+        int poolSize = questions.size();
+        int[] quotas = new int[strata.size()];
+        double[] remainders = new double[strata.size()];
+        int assigned = 0;
+        for (int i = 0; i < strata.size(); i++) {
+            double exact = (double) count * strata.get(i).size() / poolSize;
+            quotas[i] = (int) exact;
+            remainders[i] = exact - quotas[i];
+            assigned += quotas[i];
+        }
+
+        List<Integer> order = new ArrayList<>(strata.size());
+        for (int i = 0; i < strata.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> remainders[a] != remainders[b] ? Double.compare(remainders[b], remainders[a]) : a - b);
+        for (int k = 0; k < count - assigned; k++) {
+            quotas[order.get(k)]++;
+        }
+        return quotas;
+    }
+
+    public int totalMarks(List<ExamQuestionDTO> paper) {
+        int total = 0;
+        for (ExamQuestionDTO question : paper) {
+            total += question.getMarks() != null ? question.getMarks() : 0;
+        }
+        return total;
+    }
+
+    public ExamDTO toPaperDTO(List<ExamQuestionDTO> paper) {
+        ExamDTO dto = new ExamDTO(
+            header.getId(),
+            header.getTitle(),
+            header.getDescription(),
+            header.getDurationMinutes(),
+            header.getStartTime(),
+            header.getEndTime(),
+            header.getTotalMarks()
+        );
+        dto.setNegativeMarking(header.getNegativeMarking());
+        dto.setNegativeMarkingPercentage(header.getNegativeMarkingPercentage());
+        dto.setIsActive(header.getIsActive());
+        dto.setCourseId(header.getCourseId());
+        dto.setCourseName(header.getCourseName());
+        dto.setCreatedBy(header.getCreatedBy());
+        dto.setRandomizeQuestions(header.getRandomizeQuestions());
+        dto.setQuestionsPerPaper(header.getQuestionsPerPaper());
+        dto.setQuestionCount(paper.size());
+        if (paper.size() < questions.size()) {
+            dto.setTotalMarks(totalMarks(paper));
+        }
+        if (!Boolean.TRUE.equals(header.getIsActive())) {
+            dto.setStatus("COMPLETED");
+        } else if (examStartTime != null && LocalDateTime.now().isBefore(examStartTime)) {
+            dto.setStatus("UPCOMING");
+        } else {
+            dto.setStatus("ACTIVE");
+        }
+        dto.setQuestions(paper);
+        return dto;
+    }
+}
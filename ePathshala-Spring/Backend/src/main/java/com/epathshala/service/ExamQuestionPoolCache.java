@@ -0,0 +1,77 @@
+package com.epathshala.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Question pools of active exams, keyed by exam id, and the paper seeds of
+ * in-progress attempts, keyed by "examId:studentId". Together they let a
+ * student's paper be served without touching the database. Seeds are removed
+ * when the attempt is submitted, or once its time (plus
+ * {@code exam.timer.expired-retention-minutes}) has run out.
+ */
+@Component
+public class ExamQuestionPoolCache {
+
+    @Value("${exam.timer.expired-retention-minutes:10}")
+    private long expiredRetentionMinutes;
+
+    private final Map<Long, ExamQuestionPool> pools = new ConcurrentHashMap<>();
+
+    private final Map<String, CachedSeed> seeds = new ConcurrentHashMap<>();
+
+    public ExamQuestionPool get(Long examId, Supplier<ExamQuestionPool> loader) {
+        return pools.computeIfAbsent(examId, id -> loader.get());
+    }
+
+    public ExamQuestionPool getIfPresent(Long examId) {
+        return pools.get(examId);
+    }
+
+    public void evict(Long examId) {
+        pools.remove(examId);
+    }
+
+    // A null seed is an unshuffled paper
+    public void putSeed(Long examId, Long studentId, Long seed, LocalDateTime startTime, int durationMinutes) {
+        LocalDateTime expiresAt = startTime.plusMinutes(durationMinutes).plusMinutes(expiredRetentionMinutes);
+        seeds.put(examId + ":" + studentId, new CachedSeed(seed, expiresAt));
+    }
+
+    // Returns null when the attempt's seed is not cached; use hasSeed to tell that from an unshuffled paper
+    public Long getSeed(Long examId, Long studentId) {
+        CachedSeed cached = seeds.get(examId + ":" + studentId);
+        return cached != null ? cached.seed : null;
+    }
+
+    public boolean hasSeed(Long examId, Long studentId) {
+        return seeds.containsKey(examId + ":" + studentId);
+    }
+
+    public void removeSeed(Long examId, Long studentId) {
+        seeds.remove(examId + ":" + studentId);
+    }
+
+    // Attempts that are never submitted would otherwise keep their seed forever
+    @Scheduled(fixedDelayString = "${exam.question-pool.seed-sweep-ms:60000}")
+    public void removeExpiredSeeds() {
+        LocalDateTime now = LocalDateTime.now();
+        seeds.values().removeIf(cached -> cached.expiresAt.isBefore(now));
+    }
+
+    private static final class CachedSeed {
+        private final Long seed;
+        private final LocalDateTime expiresAt;
+
+        private CachedSeed(Long seed, LocalDateTime expiresAt) {
+            this.seed = seed;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.epathshala.service;
+
+import com.epathshala.repository.ExamAttemptRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes exam results as CSV or NDJSON straight from a forward-only query,
+ * holding one row in memory at a time whatever the cohort size.
+ */
+@Service
+public class ExamResultExportService {
+
+    public static final String[] COLUMNS = {
+        "attemptId", "studentName", "studentEmail", "status", "startTime", "endTime", "totalQuestions",
+        "answeredQuestions", "correctAnswers", "incorrectAnswers", "totalMarks", "obtainedMarks", "percentage"
+    };
+
+    @Autowired
+    private ExamAttemptRepository examAttemptRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void exportResults(Long examId, String format, OutputStream outputStream) throws IOException {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        if (!ndjson) {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        try (Stream<Object[]> rows = examAttemptRepository.streamResultRowsByExamId(examId)) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                if (ndjson) {
+                    writer.write(objectMapper.writeValueAsString(toMap(row)));
+                } else {
+                    writeCsvRow(writer, row);
+                }
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private Map<String, Object> toMap(Object[] row) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            map.put(COLUMNS[i], row[i]);
+        }
+        return map;
+    }
+
+    private void writeCsvRow(Writer writer, Object[] row) throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(row[i]));
+        }
+    }
+
+    private String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -13,6 +13,8 @@ import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,6 +41,24 @@ public class ExamService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private AvailableExamCache availableExamCache;
+    
+    @Autowired
+    private ExamAnswerKeyCache examAnswerKeyCache;
+    
+    @Autowired
+    private ExamAutosaveService examAutosaveService;
+    
+    @Autowired
+    private ExamAnalyticsService examAnalyticsService;
+    
+    @Autowired
+    private ExamTimerRegistry examTimerRegistry;
+    
+    @Autowired
+    private ExamQuestionPoolCache examQuestionPoolCache;
+    
     // Utility method to convert ISO 8601 string to LocalDateTime
     private LocalDateTime parseDateTime(String dateTimeString) {
         if (dateTimeString == null || dateTimeString.trim().isEmpty()) {
@@ -95,10 +115,16 @@ public class ExamService {
             exam.setNegativeMarking(examDTO.getNegativeMarking() != null ? examDTO.getNegativeMarking() : false);
             exam.setNegativeMarkingPercentage(examDTO.getNegativeMarkingPercentage() != null ? examDTO.getNegativeMarkingPercentage() : 0.0);
             exam.setIsActive(examDTO.getIsActive() != null ? examDTO.getIsActive() : true);
+            exam.setRandomizeQuestions(examDTO.getRandomizeQuestions() != null ? examDTO.getRandomizeQuestions() : false);
+            if (examDTO.getQuestionsPerPaper() != null && examDTO.getQuestionsPerPaper() <= 0) {
+                throw new IllegalArgumentException("Questions per paper must be positive");
+            }
+            exam.setQuestionsPerPaper(examDTO.getQuestionsPerPaper());
             
             System.out.println("Saving exam to database...");
             Exam savedExam = examRepository.save(exam);
             System.out.println("Exam saved with ID: " + savedExam.getId());
+            availableExamCache.evict(teacher.getAssignedClass());
             
             return convertToDTO(savedExam);
         } catch (Exception e) {
@@ -110,8 +136,7 @@ public class ExamService {
     
     @Transactional
     public ExamDTO addQuestions(Long examId, List<ExamQuestionDTO> questions) {
-        Exam exam = examRepository.findById(examId)
-                .orElseThrow(() -> new RuntimeException("Exam not found"));
+        Exam exam = lockForQuestionChange(examId);
         
         List<ExamQuestion> examQuestions = questions.stream()
                 .map(this::convertToQuestion)
@@ -119,10 +144,29 @@ public class ExamService {
         
         examQuestions.forEach(question -> question.setExam(exam));
         examQuestionRepository.saveAll(examQuestions);
+        examAnswerKeyCache.evict(examId);
+        examQuestionPoolCache.evict(examId);
+        evictAvailableExams(exam);
         
         return convertToDTO(exam);
     }
     
+    /**
+     * Locks the exam for changing its questions. Every paper is regenerated from its seed over the
+     * current question pool, so once a student has started the exam its questions are fixed.
+     * Must be called inside the transaction that writes the questions.
+     */
+    @Transactional
+    public Exam lockForQuestionChange(Long examId) {
+        Exam exam = examRepository.findByIdForQuestionChange(examId)
+                .orElseThrow(() -> new RuntimeException("Exam not found"));
+        Long attempts = examAttemptRepository.countByExamId(examId);
+        if (attempts != null && attempts > 0) {
+            throw new RuntimeException("Questions cannot be changed after students have started the exam");
+        }
+        return exam;
+    }
+    
     public List<ExamDTO> getExamsByFaculty(Long facultyId) {
         List<Exam> exams = examRepository.findByCreatedByIdOrderByCreatedAtDesc(facultyId);
         return exams.stream().map(this::convertToDTO).collect(Collectors.toList());
@@ -146,23 +190,13 @@ public class ExamService {
             Student student = studentRepository.findById(studentId)
                     .orElseThrow(() -> new RuntimeException("Student not found"));
             
-            List<Exam> allExams = examRepository.findAll();
-            
-            // Filter exams by student's class with null safety
-            List<Exam> classExams = allExams.stream()
-                    .filter(exam -> exam.getCourse() != null && 
-                                  exam.getCourse().getAssignedClass() != null &&
-                                  exam.getCourse().getAssignedClass().equals(student.getStudentClass()))
-                    .collect(Collectors.toList());
-            
-            // Filter for active or upcoming exams
-            List<Exam> availableExams = classExams.stream()
-                    .filter(exam -> exam.isCurrentlyActive() || exam.isUpcoming())
-                    .collect(Collectors.toList());
+            String studentClass = student.getStudentClass();
+            if (studentClass == null) {
+                return new ArrayList<>();
+            }
             
-            return availableExams.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            // Class and active flag are filtered in the database; results are shared per class
+            return availableExamCache.get(studentClass, () -> convertToListingDTOs(examRepository.findActiveExamsByClass(studentClass)));
         } catch (Exception e) {
             System.err.println("Error in getAvailableExams: " + e.getMessage());
             e.printStackTrace();
@@ -172,7 +206,7 @@ public class ExamService {
     
     @Transactional
     public ExamDTO startExam(Long examId, Long studentId) {
-        Exam exam = examRepository.findById(examId)
+        Exam exam = examRepository.findByIdForAttempt(examId)
                 .orElseThrow(() -> new RuntimeException("Exam not found"));
         
         Student student = studentRepository.findById(studentId)
@@ -194,49 +228,111 @@ public class ExamService {
             throw new RuntimeException("Student has already attempted this exam");
         }
         
-        // Create new attempt
+        // Create new attempt; a randomized exam gets a seed from which the student's paper is regenerated
         ExamAttempt attempt = new ExamAttempt(exam, student);
-        attempt.setTotalMarks(exam.getQuestions().stream().mapToInt(ExamQuestion::getMarks).sum());
+        Long seed = null;
+        if (Boolean.TRUE.equals(exam.getRandomizeQuestions())) {
+            do {
+                seed = ThreadLocalRandom.current().nextLong();
+            } while (seed == 0L);
+        }
+        ExamQuestionPool pool = getQuestionPool(exam);
+        List<ExamQuestionDTO> paper = pool.draw(seed);
+        attempt.setPaperSeed(seed);
+        attempt.setTotalQuestions(paper.size());
+        attempt.setTotalMarks(pool.totalMarks(paper));
         examAttemptRepository.save(attempt);
+        examQuestionPoolCache.putSeed(examId, studentId, seed, attempt.getStartTime(), exam.getDurationMinutes());
+        examTimerRegistry.register(examId, studentId, student.getUser().getEmail(),
+                attempt.getStartTime(), exam.getDurationMinutes());
         
-        return convertToDTO(exam);
+        return pool.toPaperDTO(paper);
     }
     
     @Transactional
     public ExamResultDTO submitExam(Long examId, Long studentId, Map<Long, String> answers) {
+        return submitExam(examId, studentId, answers, LocalDateTime.now());
+    }
+    
+    // submittedAt is when the student submitted; queued submissions are graded some time later
+    @Transactional
+    public ExamResultDTO submitExam(Long examId, Long studentId, Map<Long, String> answers, LocalDateTime submittedAt) {
         Exam exam = examRepository.findById(examId)
                 .orElseThrow(() -> new RuntimeException("Exam not found"));
         
         Student student = studentRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
         
-        ExamAttempt attempt = examAttemptRepository.findByExamIdAndStudentId(examId, studentId)
+        Long attemptId = examAttemptRepository.findIdByExamIdAndStudentId(examId, studentId)
+                .orElseThrow(() -> new RuntimeException("No active attempt found"));
+        // Row lock held until commit, so a timer flush of late autosaves waits and then finds the attempt completed
+        ExamAttempt attempt = examAttemptRepository.findByIdForUpdate(attemptId)
                 .orElseThrow(() -> new RuntimeException("No active attempt found"));
         
         if (attempt.isCompleted()) {
             throw new RuntimeException("Exam has already been submitted");
         }
         
-        // Save answers
-        List<ExamAnswer> examAnswers = new ArrayList<>();
+        // Autosaved answers are already in exam_answers; write out whatever is still buffered
+        examAutosaveService.flush(attempt.getId());
+        Map<Long, ExamAnswer> savedAnswers = new LinkedHashMap<>();
+        for (ExamAnswer saved : examAnswerRepository.findByAttemptIdOrderByCreatedAtAsc(attempt.getId())) {
+            savedAnswers.put(saved.getQuestion().getId(), saved);
+        }
+        
+        // Answers in the submitted payload override the autosaved ones
+        ExamAnswerKey answerKey = examAnswerKeyCache.getOrLoad(exam);
+        Set<Long> paperQuestionIds = getPaperQuestionIds(exam, attempt.getPaperSeed());
+        List<ExamAnswer> newAnswers = new ArrayList<>();
         for (Map.Entry<Long, String> entry : answers.entrySet()) {
-            ExamQuestion question = examQuestionRepository.findById(entry.getKey())
-                    .orElseThrow(() -> new RuntimeException("Question not found"));
+            if (answerKey.indexOf(entry.getKey()) < 0
+                    || (paperQuestionIds != null && !paperQuestionIds.contains(entry.getKey()))) {
+                throw new RuntimeException("Question not found");
+            }
             
-            ExamAnswer answer = new ExamAnswer(attempt, question, entry.getValue());
-            answer.calculateMarks();
-            examAnswers.add(answer);
+            ExamAnswer saved = savedAnswers.get(entry.getKey());
+            if (saved != null) {
+                saved.setSelectedAnswer(entry.getValue());
+            } else {
+                ExamAnswer answer = new ExamAnswer();
+                answer.setAttempt(attempt);
+                answer.setQuestion(examQuestionRepository.getReferenceById(entry.getKey()));
+                answer.setSelectedAnswer(entry.getValue());
+                savedAnswers.put(entry.getKey(), answer);
+                newAnswers.add(answer);
+            }
         }
         
-        examAnswerRepository.saveAll(examAnswers);
+        // Grade in memory against the cached answer key; questions are only referenced, never loaded
+        List<ExamAnswer> examAnswers = new ArrayList<>(savedAnswers.size());
+        int[] keyIndexes = new int[savedAnswers.size()];
+        for (Map.Entry<Long, ExamAnswer> entry : savedAnswers.entrySet()) {
+            int index = answerKey.indexOf(entry.getKey());
+            if (index < 0 || (paperQuestionIds != null && !paperQuestionIds.contains(entry.getKey()))) {
+                continue;
+            }
+            entry.getValue().calculateMarks(answerKey, index);
+            keyIndexes[examAnswers.size()] = index;
+            examAnswers.add(entry.getValue());
+        }
+        
+        // Inserts are flushed as JDBC batches (see hibernate.jdbc.batch_size); autosaved rows are updated in place
+        examAnswerRepository.saveAll(newAnswers);
         
         // Calculate results
-        attempt.calculateResults();
-        attempt.setEndTime(LocalDateTime.now());
+        attempt.calculateResults(examAnswers);
+        attempt.setEndTime(submittedAt);
         attempt.setStatus("COMPLETED");
         examAttemptRepository.save(attempt);
-        
-        return convertToResultDTO(attempt);
+        examAutosaveService.forgetAttempt(examId, studentId, attempt.getId());
+        examTimerRegistry.remove(examId, studentId);
+        examQuestionPoolCache.removeSeed(examId, studentId);
+        recordAnalytics(attempt, examAnswers, keyIndexes, answerKey);
+        
+        ExamResultDTO result = buildResultDTO(attempt);
+        result.setTopicPerformance(calculatePerformance(examAnswers, keyIndexes, answerKey::getTopic));
+        result.setDifficultyPerformance(calculatePerformance(examAnswers, keyIndexes, answerKey::getDifficulty));
+        return result;
     }
     
     public ExamResultDTO getExamResult(Long examId, Long studentId) {
@@ -246,6 +342,32 @@ public class ExamService {
         return convertToResultDTO(attempt);
     }
     
+    // The student's own paper, regenerated from the attempt's seed; served from memory while the attempt is in progress
+    public ExamDTO getExamPaper(Long examId, Long studentId) {
+        Long seed;
+        if (examQuestionPoolCache.hasSeed(examId, studentId)) {
+            seed = examQuestionPoolCache.getSeed(examId, studentId);
+        } else {
+            List<Object[]> rows = examAttemptRepository.findPaperStateByExamIdAndStudentId(examId, studentId);
+            if (rows.isEmpty()) {
+                throw new RuntimeException("Exam has not been started");
+            }
+            Object[] row = rows.get(0);
+            seed = (Long) row[1];
+            if ("IN_PROGRESS".equals(row[0])) {
+                examQuestionPoolCache.putSeed(examId, studentId, seed, (LocalDateTime) row[2],
+                        row[3] != null ? (Integer) row[3] : 0);
+            }
+        }
+        
+        ExamQuestionPool pool = examQuestionPoolCache.getIfPresent(examId);
+        if (pool == null) {
+            pool = getQuestionPool(examRepository.findById(examId)
+                    .orElseThrow(() -> new RuntimeException("Exam not found")));
+        }
+        return pool.toPaperDTO(pool.draw(seed));
+    }
+    
     // Additional methods for controllers
     
     public List<ExamResultDTO> getExamHistory(Long studentId) {
@@ -256,29 +378,24 @@ public class ExamService {
         return attempts.stream().map(this::convertToResultDTO).collect(Collectors.toList());
     }
     
+    // Served from the timer registry; the database is only read for attempts started before a restart
     public Map<String, Object> getExamTimer(Long examId, Long studentId) {
-        Exam exam = examRepository.findById(examId)
-                .orElseThrow(() -> new RuntimeException("Exam not found"));
-        
-        ExamAttempt attempt = examAttemptRepository.findByExamIdAndStudentId(examId, studentId)
-                .orElseThrow(() -> new RuntimeException("No active attempt found"));
+        Map<String, Object> timer = examTimerRegistry.getTimer(examId, studentId);
+        if (timer != null) {
+            return timer;
+        }
         
-        if (attempt.isCompleted()) {
+        List<Object[]> rows = examAttemptRepository.findTimerStateByExamIdAndStudentId(examId, studentId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("No active attempt found");
+        }
+        Object[] row = rows.get(0);
+        if ("COMPLETED".equals(row[0]) || "TIMEOUT".equals(row[0])) {
             throw new RuntimeException("Exam has already been completed");
         }
         
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime endTime = attempt.getStartTime().plusMinutes(exam.getDurationMinutes());
-        long remainingSeconds = java.time.Duration.between(now, endTime).getSeconds();
-        
-        Map<String, Object> timer = new HashMap<>();
-        timer.put("remainingSeconds", Math.max(0, remainingSeconds));
-        timer.put("isExpired", remainingSeconds <= 0);
-        timer.put("startTime", attempt.getStartTime());
-        timer.put("endTime", endTime);
-        timer.put("durationMinutes", exam.getDurationMinutes());
-        
-        return timer;
+        examTimerRegistry.register(examId, studentId, (String) row[3], (LocalDateTime) row[1], (Integer) row[2]);
+        return examTimerRegistry.getTimer(examId, studentId);
     }
     
     @Transactional
@@ -288,6 +405,9 @@ public class ExamService {
         
         exam.setIsActive(true);
         Exam savedExam = examRepository.save(exam);
+        examAnswerKeyCache.refresh(savedExam);
+        examQuestionPoolCache.evict(examId);
+        evictAvailableExams(savedExam);
         return convertToDTO(savedExam);
     }
     
@@ -298,6 +418,10 @@ public class ExamService {
         
         exam.setIsActive(false);
         Exam savedExam = examRepository.save(exam);
+        examAnswerKeyCache.evict(examId);
+        examQuestionPoolCache.evict(examId);
+        examAnalyticsService.evict(examId);
+        evictAvailableExams(savedExam);
         return convertToDTO(savedExam);
     }
     
@@ -317,11 +441,108 @@ public class ExamService {
         
         // Delete the exam
         examRepository.delete(exam);
+        examAnswerKeyCache.evict(examId);
+        examQuestionPoolCache.evict(examId);
+        examAnalyticsService.evict(examId);
+        evictAvailableExams(exam);
     }
     
     // Helper Methods
     
+    private void recordAnalytics(ExamAttempt attempt, List<ExamAnswer> gradedAnswers, int[] keyIndexes, ExamAnswerKey answerKey) {
+        long[] questionIds = new long[gradedAnswers.size()];
+        String[] selectedAnswers = new String[gradedAnswers.size()];
+        boolean[] correct = new boolean[gradedAnswers.size()];
+        for (int i = 0; i < gradedAnswers.size(); i++) {
+            questionIds[i] = answerKey.getQuestionId(keyIndexes[i]);
+            selectedAnswers[i] = gradedAnswers.get(i).getSelectedAnswer();
+            correct[i] = gradedAnswers.get(i).getIsCorrect();
+        }
+        examAnalyticsService.recordAttempt(attempt.getExam().getId(), attempt.getId(), attempt.getPercentage(),
+                questionIds, selectedAnswers, correct);
+    }
+    
+    
+    // Active exams keep their question pool in memory; inactive ones are built on demand
+    private ExamQuestionPool getQuestionPool(Exam exam) {
+        if (Boolean.TRUE.equals(exam.getIsActive())) {
+            return examQuestionPoolCache.get(exam.getId(), () -> buildQuestionPool(exam));
+        }
+        return buildQuestionPool(exam);
+    }
+    
+    private ExamQuestionPool buildQuestionPool(Exam exam) {
+        // Ties on createdAt (batch inserts) are broken by id, so every rebuild yields the same order
+        List<ExamQuestionDTO> questions = examQuestionRepository.findByExamIdOrderByCreatedAtAsc(exam.getId()).stream()
+            .sorted(Comparator.comparing(ExamQuestion::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(ExamQuestion::getId))
+            .map(question -> {
+                ExamQuestionDTO dto = convertQuestionToDTO(question);
+                dto.setCorrectAnswer(null);
+                return dto;
+            })
+            .collect(Collectors.toList());
+        return new ExamQuestionPool(convertToHeaderDTO(exam), exam.getStartTime(), exam.getQuestionsPerPaper(), questions);
+    }
+    
+    // Null when the attempt serves every question (no seed)
+    private Set<Long> getPaperQuestionIds(Exam exam, Long seed) {
+        if (seed == null) {
+            return null;
+        }
+        Set<Long> ids = new HashSet<>();
+        for (ExamQuestionDTO question : getQuestionPool(exam).draw(seed)) {
+            ids.add(question.getId());
+        }
+        return ids;
+    }
+    
+    private void evictAvailableExams(Exam exam) {
+        if (exam.getCourse() != null) {
+            availableExamCache.evict(exam.getCourse().getAssignedClass());
+        } else {
+            availableExamCache.evictAll();
+        }
+    }
+    
     private ExamDTO convertToDTO(Exam exam) {
+        ExamDTO dto = convertToHeaderDTO(exam);
+        
+        // Load and set questions
+        List<ExamQuestion> questions = examQuestionRepository.findByExamIdOrderByCreatedAtAsc(exam.getId());
+        System.out.println("Found " + questions.size() + " questions for exam " + exam.getId());
+        
+        List<ExamQuestionDTO> questionDTOs = questions.stream()
+            .map(this::convertQuestionToDTO)
+            .collect(Collectors.toList());
+        
+        System.out.println("Converted " + questionDTOs.size() + " question DTOs");
+        dto.setQuestions(questionDTOs);
+        
+        return dto;
+    }
+    
+    // Header DTOs with question counts from one grouped query instead of loading each exam's questions
+    private List<ExamDTO> convertToListingDTOs(List<Exam> exams) {
+        if (exams.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Integer> questionCounts = new HashMap<>();
+        List<Long> examIds = exams.stream().map(Exam::getId).collect(Collectors.toList());
+        for (Object[] row : examQuestionRepository.countByExamIds(examIds)) {
+            questionCounts.put((Long) row[0], ((Long) row[1]).intValue());
+        }
+        return exams.stream()
+                .map(exam -> convertToHeaderDTO(exam, questionCounts.getOrDefault(exam.getId(), 0)))
+                .collect(Collectors.toList());
+    }
+    
+    // Exam fields without the question list
+    private ExamDTO convertToHeaderDTO(Exam exam) {
+        return convertToHeaderDTO(exam, exam.getQuestionCount());
+    }
+    
+    private ExamDTO convertToHeaderDTO(Exam exam, int questionCount) {
         ExamDTO dto = new ExamDTO(
             exam.getId(),
             exam.getTitle(),
@@ -335,6 +556,8 @@ public class ExamService {
         dto.setNegativeMarking(exam.getNegativeMarking());
         dto.setNegativeMarkingPercentage(exam.getNegativeMarkingPercentage());
         dto.setIsActive(exam.getIsActive());
+        dto.setRandomizeQuestions(exam.getRandomizeQuestions());
+        dto.setQuestionsPerPaper(exam.getQuestionsPerPaper());
         
         // Add null checks for course
         if (exam.getCourse() != null) {
@@ -347,7 +570,7 @@ public class ExamService {
             dto.setCreatedBy(exam.getCreatedBy().getName());
         }
         
-        dto.setQuestionCount(exam.getQuestionCount());
+        dto.setQuestionCount(questionCount);
         
         // Set status
         if (exam.isUpcoming()) {
@@ -358,17 +581,6 @@ public class ExamService {
             dto.setStatus("COMPLETED");
         }
         
-        // Load and set questions
-        List<ExamQuestion> questions = examQuestionRepository.findByExamIdOrderByCreatedAtAsc(exam.getId());
-        System.out.println("Found " + questions.size() + " questions for exam " + exam.getId());
-        
-        List<ExamQuestionDTO> questionDTOs = questions.stream()
-            .map(this::convertQuestionToDTO)
-            .collect(Collectors.toList());
-        
-        System.out.println("Converted " + questionDTOs.size() + " question DTOs");
-        dto.setQuestions(questionDTOs);
-        
         return dto;
     }
     
@@ -402,6 +614,17 @@ public class ExamService {
     }
     
     private ExamResultDTO convertToResultDTO(ExamAttempt attempt) {
+        ExamResultDTO dto = buildResultDTO(attempt);
+        
+        // Add chart data
+        dto.setTopicPerformance(calculateTopicPerformance(attempt));
+        dto.setDifficultyPerformance(calculateDifficultyPerformance(attempt));
+        
+        return dto;
+    }
+    
+    // Result fields that come from the attempt itself, without per-question chart data
+    private ExamResultDTO buildResultDTO(ExamAttempt attempt) {
         ExamResultDTO dto = new ExamResultDTO(
             attempt.getId(),
             attempt.getExam().getId(),
@@ -420,15 +643,20 @@ public class ExamService {
         
         dto.setStatus(attempt.getStatus());
         dto.setDurationMinutes(attempt.getDurationInMinutes());
-        
-        // Add chart data
-        dto.setTopicPerformance(calculateTopicPerformance(attempt));
-        dto.setDifficultyPerformance(calculateDifficultyPerformance(attempt));
         dto.setAnswerDistribution(calculateAnswerDistribution(attempt));
         
         return dto;
     }
     
+    private Map<String, Integer> calculatePerformance(List<ExamAnswer> answers, int[] keyIndexes,
+                                                      IntFunction<String> dimension) {
+        Map<String, Integer> performance = new HashMap<>();
+        for (int i = 0; i < answers.size(); i++) {
+            performance.merge(dimension.apply(keyIndexes[i]), answers.get(i).getIsCorrect() ? 1 : 0, Integer::sum);
+        }
+        return performance;
+    }
+    
     private Map<String, Integer> calculateTopicPerformance(ExamAttempt attempt) {
         return attempt.getAnswers().stream()
                 .collect(Collectors.groupingBy(
@@ -0,0 +1,269 @@
+package com.epathshala.service;
+
+import com.epathshala.dto.ExamResultDTO;
+import com.epathshala.entity.ExamAttempt;
+import com.epathshala.entity.ExamSubmission;
+import com.epathshala.repository.ExamAttemptRepository;
+import com.epathshala.repository.ExamSubmissionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Write-behind intake for exam submissions.
+ * The request thread checks that the student has an attempt in progress, stores the raw
+ * answers (one insert) and returns a ticket. {@code exam.submission-queue.workers} worker
+ * threads each claim up to {@code exam.submission-queue.batch-size} queued submissions and
+ * grade them in one transaction, so at most that many connections are busy grading at once.
+ * If a batch fails its submissions are graded one by one, and a submission that fails is
+ * queued again up to {@code exam.submission-queue.max-retries} times before it is marked FAILED.
+ * Attempts are closed at the time the student submitted, not when the worker got to them.
+ */
+@Service
+public class ExamSubmissionQueueService {
+
+    private static final TypeReference<Map<Long, String>> ANSWERS_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private ExamSubmissionRepository examSubmissionRepository;
+
+    @Autowired
+    private ExamAttemptRepository examAttemptRepository;
+
+    @Autowired
+    private ExamService examService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${exam.submission-queue.enabled:false}")
+    private boolean enabled;
+
+    @Value("${exam.submission-queue.workers:4}")
+    private int workers;
+
+    @Value("${exam.submission-queue.batch-size:20}")
+    private int batchSize;
+
+    @Value("${exam.submission-queue.poll-interval-ms:1000}")
+    private long pollIntervalMillis;
+
+    @Value("${exam.submission-queue.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${exam.submission-queue.processing-timeout-seconds:300}")
+    private long processingTimeoutSeconds;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ExecutorService workerPool;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        workerPool = Executors.newFixedThreadPool(workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
+    }
+
+    public ExamSubmission enqueue(Long examId, Long studentId, Map<Long, String> answers) {
+        List<Object[]> rows = examAttemptRepository.findAutosaveStateByExamIdAndStudentId(examId, studentId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("No active attempt found");
+        }
+        if (!"IN_PROGRESS".equals(rows.get(0)[1])) {
+            throw new RuntimeException("Exam has already been submitted");
+        }
+        try {
+            String answersJson = objectMapper.writeValueAsString(answers);
+            return examSubmissionRepository.save(new ExamSubmission(examId, studentId, answersJson));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid answers payload", e);
+        }
+    }
+
+    public Map<String, Object> getSubmissionStatus(Long ticketId, Long studentId) {
+        ExamSubmission submission = examSubmissionRepository.findById(ticketId)
+                .filter(s -> s.getStudentId().equals(studentId))
+                .orElseThrow(() -> new RuntimeException("Submission not found"));
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("ticketId", submission.getId());
+        status.put("examId", submission.getExamId());
+        status.put("status", submission.getStatus());
+        if ("COMPLETED".equals(submission.getStatus())) {
+            status.put("result", examService.getExamResult(submission.getExamId(), studentId));
+        } else if ("FAILED".equals(submission.getStatus())) {
+            status.put("error", submission.getErrorMessage());
+        }
+        return status;
+    }
+
+    // Submissions left in PROCESSING by a crash are graded again once their claim has timed out; submitExam rejects duplicates
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${exam.submission-queue.requeue-check-ms:60000}", initialDelayString = "${exam.submission-queue.requeue-check-ms:60000}")
+    public void requeueInterruptedSubmissions() {
+        if (!enabled) {
+            return;
+        }
+        int requeued = examSubmissionRepository.requeueInterrupted(LocalDateTime.now().minusSeconds(processingTimeoutSeconds));
+        if (requeued > 0) {
+            System.out.println("🔁 Re-queued " + requeued + " interrupted exam submissions");
+        }
+    }
+
+    // Workers run on their own threads, so grading never holds the shared scheduler
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < workers; i++) {
+            workerPool.submit(this::runWorker);
+        }
+        System.out.println("📥 Started " + workers + " exam submission workers");
+    }
+
+    private void runWorker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Long> claimed = claimBatch();
+                if (claimed.isEmpty()) {
+                    Thread.sleep(pollIntervalMillis);
+                } else {
+                    processBatch(claimed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.err.println("Error in exam submission worker: " + e.getMessage());
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private List<Long> claimBatch() {
+        List<Long> claimed = new ArrayList<>();
+        for (Long id : examSubmissionRepository.findQueuedIds(PageRequest.of(0, batchSize))) {
+            if (examSubmissionRepository.claim(id, LocalDateTime.now()) == 1) {
+                claimed.add(id);
+            }
+        }
+        return claimed;
+    }
+
+    // The whole batch commits together; if any submission fails, each is graded again in its own transaction
+    private void processBatch(List<Long> ids) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> ids.forEach(this::grade));
+            return;
+        } catch (Exception e) {
+            if (ids.size() > 1) {
+                System.err.println("Exam submission batch of " + ids.size() + " failed, grading one by one: " + e.getMessage());
+            }
+        }
+
+        for (Long id : ids) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> grade(id));
+            } catch (Exception e) {
+                handleFailure(id, e);
+            }
+        }
+    }
+
+    private void grade(Long id) {
+        ExamSubmission submission = examSubmissionRepository.findById(id).orElse(null);
+        if (submission == null || !"PROCESSING".equals(submission.getStatus())) {
+            return;
+        }
+
+        // A replayed submission finds its attempt already graded
+        ExamAttempt existing = findCompletedAttempt(submission);
+        if (existing != null) {
+            markCompleted(submission, existing.getId());
+            return;
+        }
+
+        Map<Long, String> answers;
+        try {
+            answers = objectMapper.readValue(submission.getAnswersJson(), ANSWERS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid answers payload", e);
+        }
+        ExamResultDTO result = examService.submitExam(submission.getExamId(), submission.getStudentId(),
+                answers, submission.getCreatedAt());
+        markCompleted(submission, result.getAttemptId());
+    }
+
+    private void handleFailure(Long id, Exception e) {
+        ExamSubmission submission = examSubmissionRepository.findById(id).orElse(null);
+        if (submission == null) {
+            return;
+        }
+
+        ExamAttempt existing = findCompletedAttempt(submission);
+        if (existing != null) {
+            markCompleted(submission, existing.getId());
+            return;
+        }
+
+        int retries = submission.getRetryCount() != null ? submission.getRetryCount() : 0;
+        submission.setErrorMessage(e.getMessage());
+        if (retries < maxRetries) {
+            System.err.println("Error grading exam submission " + id + ", queued for retry " + (retries + 1) + ": " + e.getMessage());
+            submission.setRetryCount(retries + 1);
+            submission.setStatus("QUEUED");
+            submission.setClaimedAt(null);
+        } else {
+            System.err.println("Error grading exam submission " + id + ", giving up after " + retries + " retries: " + e.getMessage());
+            submission.setStatus("FAILED");
+            submission.setProcessedAt(LocalDateTime.now());
+        }
+        examSubmissionRepository.save(submission);
+    }
+
+    private ExamAttempt findCompletedAttempt(ExamSubmission submission) {
+        return examAttemptRepository
+                .findByExamIdAndStudentId(submission.getExamId(), submission.getStudentId())
+                .filter(ExamAttempt::isCompleted)
+                .orElse(null);
+    }
+
+    private void markCompleted(ExamSubmission submission, Long attemptId) {
+        submission.setStatus("COMPLETED");
+        submission.setAttemptId(attemptId);
+        submission.setErrorMessage(null);
+        submission.setProcessedAt(LocalDateTime.now());
+        examSubmissionRepository.save(submission);
+    }
+}
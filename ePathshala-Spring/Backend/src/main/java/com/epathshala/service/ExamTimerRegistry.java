@@ -0,0 +1,108 @@
+package com.epathshala.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-authoritative deadlines of in-progress exam attempts, keyed by (examId, studentId).
+ * Timer reads are answered from memory, and every connected student receives
+ * remaining-time ticks and a FORCE_SUBMIT signal on /user/queue/exam-timer.
+ */
+@Component
+public class ExamTimerRegistry {
+
+    private static final String TIMER_DESTINATION = "/queue/exam-timer";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    // Entries are dropped this long after the deadline if the attempt is never submitted
+    @Value("${exam.timer.expired-retention-minutes:10}")
+    private long expiredRetentionMinutes;
+
+    private final Map<String, ExamTimer> timers = new ConcurrentHashMap<>();
+
+    public void register(Long examId, Long studentId, String userEmail, LocalDateTime startTime, int durationMinutes) {
+        timers.put(key(examId, studentId), new ExamTimer(examId, userEmail, startTime, durationMinutes));
+    }
+
+    public void remove(Long examId, Long studentId) {
+        timers.remove(key(examId, studentId));
+    }
+
+    // Returns null when the attempt is not registered (e.g. after a restart)
+    public Map<String, Object> getTimer(Long examId, Long studentId) {
+        ExamTimer timer = timers.get(key(examId, studentId));
+        return timer != null ? timer.toMap(LocalDateTime.now()) : null;
+    }
+
+    @Scheduled(fixedRateString = "${exam.timer.tick-interval-ms:5000}")
+    public void pushTicks() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime retentionCutoff = now.minusMinutes(expiredRetentionMinutes);
+        timers.entrySet().removeIf(entry -> entry.getValue().deadline.isBefore(retentionCutoff));
+
+        for (ExamTimer timer : timers.values()) {
+            if (timer.userEmail == null) {
+                continue;
+            }
+            Map<String, Object> tick = timer.toMap(now);
+            if (Boolean.TRUE.equals(tick.get("isExpired"))) {
+                if (timer.forceSubmitSent) {
+                    continue;
+                }
+                tick.put("type", "FORCE_SUBMIT");
+                timer.forceSubmitSent = true;
+            } else {
+                tick.put("type", "TICK");
+            }
+            try {
+                messagingTemplate.convertAndSendToUser(timer.userEmail, TIMER_DESTINATION, tick);
+            } catch (Exception e) {
+                System.err.println("Error pushing exam timer to " + timer.userEmail + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static String key(Long examId, Long studentId) {
+        return examId + ":" + studentId;
+    }
+
+    private static final class ExamTimer {
+        private final Long examId;
+        private final String userEmail;
+        private final LocalDateTime startTime;
+        private final LocalDateTime deadline;
+        private final int durationMinutes;
+        private volatile boolean forceSubmitSent;
+
+        private ExamTimer(Long examId, String userEmail, LocalDateTime startTime, int durationMinutes) {
+            this.examId = examId;
+            this.userEmail = userEmail;
+            this.startTime = startTime;
+            this.deadline = startTime.plusMinutes(durationMinutes);
+            this.durationMinutes = durationMinutes;
+        }
+
+        private Map<String, Object> toMap(LocalDateTime now) {
+            long remainingSeconds = Duration.between(now, deadline).getSeconds();
+            Map<String, Object> timer = new HashMap<>();
+            timer.put("examId", examId);
+            timer.put("remainingSeconds", Math.max(0, remainingSeconds));
+            timer.put("isExpired", remainingSeconds <= 0);
+            timer.put("startTime", startTime);
+            timer.put("endTime", deadline);
+            timer.put("durationMinutes", durationMinutes);
+            return timer;
+        }
+    }
+}
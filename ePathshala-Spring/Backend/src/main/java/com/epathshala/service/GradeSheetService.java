@@ -0,0 +1,279 @@
+package com.epathshala.service;
+
+import com.epathshala.dto.GradeDTO;
+import com.epathshala.repository.StudentRepository;
+import com.epathshala.util.CsvReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk grade entry for teachers: a JSON list of grades or a streamed CSV grade
+ * sheet (header row with studentId, subject, marks). Rows are collected into
+ * batches of {@code grade.sheet.batch-size}; each batch checks its students with
+ * one query and is inserted as one JDBC batch in its own transaction. Every row
+ * is a new grade, so earlier grades in the same subject are kept. Rejected rows
+ * are reported and skipped.
+ */
+@Service
+public class GradeSheetService {
+
+    public static final String[] CSV_COLUMNS = {"studentId", "subject", "marks"};
+
+    private static final int MAX_REPORTED_ERRORS = 500;
+
+    // rewriteBatchedStatements turns the batch into multi-row INSERTs
+    private static final String INSERT_GRADE_SQL =
+        "INSERT INTO grade (student_id, subject, marks, teacher_id) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${grade.sheet.batch-size:200}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Rows are numbered from 1 in the order given
+    public Map<String, Object> enterGrades(List<GradeDTO> grades, String className) {
+        Long teacherId = requireTeacherId();
+        SheetReport report = new SheetReport("row");
+        Batch batch = new Batch();
+        long rowNumber = 0;
+        for (GradeDTO dto : grades != null ? grades : List.<GradeDTO>of()) {
+            rowNumber++;
+            report.rows++;
+            addRow(dto, rowNumber, className, teacherId, batch, report);
+        }
+        writeBatch(batch, className, teacherId, report);
+
+        System.out.println("📝 Entered " + report.saved + " grades (" + report.failed + " rows rejected)");
+        return report.toMap();
+    }
+
+    public Map<String, Object> importGradeSheet(InputStream inputStream, String className) throws IOException {
+        Long teacherId = requireTeacherId();
+        SheetReport report = new SheetReport("line");
+        Batch batch = new Batch();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        CsvReader csv = new CsvReader(reader);
+
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            throw new RuntimeException("CSV file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(), i);
+        }
+        int[] positions = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            Integer position = columns.get(CSV_COLUMNS[i].toLowerCase());
+            if (position == null) {
+                throw new RuntimeException("Missing CSV column: " + CSV_COLUMNS[i]);
+            }
+            positions[i] = position;
+        }
+
+        while (true) {
+            long lineNumber = csv.getLineNumber() + 1;
+            List<String> record = csv.readRecord();
+            if (record == null) {
+                break;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            report.rows++;
+
+            String[] values = new String[CSV_COLUMNS.length];
+            for (int i = 0; i < positions.length; i++) {
+                values[i] = positions[i] < record.size() ? record.get(positions[i]).trim() : null;
+            }
+
+            GradeDTO dto = new GradeDTO();
+            dto.setSubject(values[1]);
+            try {
+                dto.setStudentId(values[0] == null || values[0].isEmpty() ? null : Long.valueOf(values[0]));
+            } catch (NumberFormatException e) {
+                report.addError(lineNumber, "Invalid student id: " + values[0]);
+                continue;
+            }
+            try {
+                dto.setMarks(values[2] == null || values[2].isEmpty() ? null : Double.valueOf(values[2]));
+            } catch (NumberFormatException e) {
+                report.addError(lineNumber, "Invalid marks: " + values[2]);
+                continue;
+            }
+            addRow(dto, lineNumber, className, teacherId, batch, report);
+        }
+        writeBatch(batch, className, teacherId, report);
+
+        System.out.println("📥 Imported " + report.saved + " grades from grade sheet (" + report.failed + " rows rejected)");
+        return report.toMap();
+    }
+
+    private Long requireTeacherId() {
+        Long teacherId = teacherService.getCurrentTeacherId();
+        if (teacherId == null) {
+            throw new RuntimeException("Teacher not found");
+        }
+        return teacherId;
+    }
+
+    private void addRow(GradeDTO dto, long position, String className, Long teacherId, Batch batch, SheetReport report) {
+        String error = validate(dto);
+        if (error != null) {
+            report.addError(position, error);
+            return;
+        }
+        dto.setSubject(dto.getSubject().trim());
+        batch.add(dto, position);
+        if (batch.size() >= batchSize) {
+            writeBatch(batch, className, teacherId, report);
+        }
+    }
+
+    private String validate(GradeDTO dto) {
+        if (dto == null || dto.getStudentId() == null) {
+            return "Student id is required";
+        }
+        if (dto.getSubject() == null || dto.getSubject().isBlank()) {
+            return "Subject is required";
+        }
+        if (dto.getMarks() == null || dto.getMarks().isNaN() || dto.getMarks() < 0) {
+            return "Marks must be a non-negative number";
+        }
+        return null;
+    }
+
+    private void writeBatch(Batch batch, String className, Long teacherId, SheetReport report) {
+        if (batch.size() == 0) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (GradeDTO dto : batch.grades) {
+            ids.add(dto.getStudentId());
+        }
+        Map<Long, String> studentClasses = new HashMap<>();
+        for (Object[] row : studentRepository.findClassesByIds(ids)) {
+            studentClasses.put((Long) row[0], (String) row[1]);
+        }
+
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        List<Long> positions = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            GradeDTO dto = batch.grades.get(i);
+            if (!studentClasses.containsKey(dto.getStudentId())) {
+                report.addError(batch.positions.get(i), "Student not found: " + dto.getStudentId());
+            } else if (className != null && !className.equals(studentClasses.get(dto.getStudentId()))) {
+                report.addError(batch.positions.get(i), "Student " + dto.getStudentId() + " is not in class " + className);
+            } else {
+                rows.add(new Object[] {dto.getStudentId(), dto.getSubject(), dto.getMarks(), teacherId});
+                positions.add(batch.positions.get(i));
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_GRADE_SQL, rows));
+                report.saved += rows.size();
+            } catch (Exception e) {
+                // Retry row by row so one bad row does not reject the rest
+                for (int i = 0; i < rows.size(); i++) {
+                    try {
+                        jdbcTemplate.update(INSERT_GRADE_SQL, rows.get(i));
+                        report.saved++;
+                    } catch (Exception rowError) {
+                        Throwable cause = rowError;
+                        while (cause.getCause() != null) {
+                            cause = cause.getCause();
+                        }
+                        report.addError(positions.get(i), cause.getMessage());
+                    }
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private static final class Batch {
+        private final List<GradeDTO> grades = new ArrayList<>();
+        private final List<Long> positions = new ArrayList<>();
+
+        private void add(GradeDTO grade, long position) {
+            grades.add(grade);
+            positions.add(position);
+        }
+
+        private int size() {
+            return grades.size();
+        }
+
+        private void clear() {
+            grades.clear();
+            positions.clear();
+        }
+    }
+
+    private static final class SheetReport {
+        private final String positionKey;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+        private long rows;
+        private long saved;
+        private long failed;
+
+        private SheetReport(String positionKey) {
+            this.positionKey = positionKey;
+        }
+
+        private void addError(long position, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put(positionKey, position);
+                error.put("message", message);
+                errors.add(error);
+            }
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("totalRows", rows);
+            result.put("saved", saved);
+            result.put("failed", failed);
+            result.put("errors", errors);
+            result.put("errorsTruncated", failed > errors.size());
+            return result;
+        }
+    }
+}
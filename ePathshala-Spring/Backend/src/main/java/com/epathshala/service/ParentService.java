@@ -1,9 +1,8 @@
 package com.epathshala.service;
 
-import com.epathshala.entity.Parent;
 import com.epathshala.entity.Student;
-import com.epathshala.repository.ParentRepository;
 import com.epathshala.repository.AttendanceRepository;
+import com.epathshala.repository.AttendanceSummaryRepository;
 import com.epathshala.repository.GradeRepository;
 import com.epathshala.dto.LeaveApprovalDTO;
 import com.epathshala.dto.ParentDashboardDTO;
@@ -11,6 +10,9 @@ import com.epathshala.entity.LeaveRequest;
 import com.epathshala.repository.LeaveRequestRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -18,51 +20,66 @@ import com.epathshala.repository.StudentRepository;
 
 @Service
 public class ParentService {
-    @Autowired
-    private ParentRepository parentRepository;
     @Autowired
     private AttendanceRepository attendanceRepository;
     @Autowired
+    private AttendanceSummaryRepository attendanceSummaryRepository;
+    @Autowired
     private GradeRepository gradeRepository;
     @Autowired
     private LeaveRequestRepository leaveRequestRepository;
     @Autowired
     private StudentRepository studentRepository;
 
+    // Every section of the parent dashboard, for all children, in one read-only transaction
+    @Transactional(readOnly = true)
+    public ParentDashboardDTO getDashboard(Long userId) {
+        Map<Long, long[]> attendanceCounts = new HashMap<>();
+        for (Object[] row : attendanceSummaryRepository.summarizeByParentUserId(userId)) {
+            attendanceCounts.put((Long) row[0], new long[] {((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
+
+        List<ParentDashboardDTO.ChildSummaryDTO> children = new ArrayList<>();
+        for (Student student : studentRepository.findByParentUserId(userId)) {
+            long[] counts = attendanceCounts.getOrDefault(student.getId(), new long[2]);
+            double percentage = counts[0] > 0 ? Math.round(counts[1] * 10000.0 / counts[0]) / 100.0 : 0.0;
+            children.add(new ParentDashboardDTO.ChildSummaryDTO(
+                student.getId(),
+                studentName(student),
+                student.getStudentClass(),
+                counts[0],
+                counts[1],
+                counts[0] - counts[1],
+                percentage
+            ));
+        }
+
+        ParentDashboardDTO dashboard = new ParentDashboardDTO();
+        dashboard.setChildren(children);
+        if (!children.isEmpty()) {
+            dashboard.setAttendance(getChildAttendance(userId));
+            dashboard.setGrades(getChildGrades(userId));
+            dashboard.setLeaveRequests(getChildLeaveStatus(userId));
+        } else {
+            System.out.println("No students found for parent userId: " + userId);
+            dashboard.setAttendance(List.of());
+            dashboard.setGrades(List.of());
+            dashboard.setLeaveRequests(List.of());
+        }
+        return dashboard;
+    }
+
     public List<ParentDashboardDTO.AttendanceResponseDTO> getChildAttendance(Long userId) {
         try {
-            // Find parent by user ID
-            Parent parent = parentRepository.findAll().stream()
-                .filter(p -> p.getUser() != null && p.getUser().getId().equals(userId))
-                .findFirst()
-                .orElse(null);
-            
-            if (parent == null) {
-                System.out.println("Parent not found for userId: " + userId);
-                return List.of();
-            }
-            
-            // Find students that have this parent
-            List<Student> students = studentRepository.findAll().stream()
-                .filter(s -> s.getParent() != null && s.getParent().getId().equals(parent.getId()))
-                .toList();
-                
-            if (students.isEmpty()) {
-                System.out.println("No students found for parent: " + parent.getId());
-                return List.of();
-            }
-            
-            // Get attendance for all children
-            return students.stream()
-                .flatMap(student -> attendanceRepository.findAll().stream()
-                    .filter(a -> a.getStudent() != null && a.getStudent().getId().equals(student.getId()))
-                    .map(a -> new ParentDashboardDTO.AttendanceResponseDTO(
-                        a.getId(),
-                        a.getDate(),
-                        a.getStatus(),
-                        student.getUser() != null ? student.getUser().getName() : "Unknown",
-                        student.getStudentClass()
-                    )))
+            // One indexed query over parent -> students -> attendance
+            return attendanceRepository.findByParentUserId(userId).stream()
+                .map(a -> new ParentDashboardDTO.AttendanceResponseDTO(
+                    a.getId(),
+                    a.getDate(),
+                    a.getStatus(),
+                    studentName(a.getStudent()),
+                    a.getStudent().getStudentClass()
+                ))
                 .collect(Collectors.toList());
         } catch (Exception e) {
             System.out.println("Error in getChildAttendance: " + e.getMessage());
@@ -73,39 +90,15 @@ public class ParentService {
 
     public List<ParentDashboardDTO.GradeResponseDTO> getChildGrades(Long userId) {
         try {
-            // Find parent by user ID
-            Parent parent = parentRepository.findAll().stream()
-                .filter(p -> p.getUser() != null && p.getUser().getId().equals(userId))
-                .findFirst()
-                .orElse(null);
-            
-            if (parent == null) {
-                System.out.println("Parent not found for userId: " + userId);
-                return List.of();
-            }
-            
-            // Find students that have this parent
-            List<Student> students = studentRepository.findAll().stream()
-                .filter(s -> s.getParent() != null && s.getParent().getId().equals(parent.getId()))
-                .toList();
-                
-            if (students.isEmpty()) {
-                System.out.println("No students found for parent: " + parent.getId());
-                return List.of();
-            }
-            
-            // Get grades for all children
-            return students.stream()
-                .flatMap(student -> gradeRepository.findAll().stream()
-                    .filter(g -> g.getStudent() != null && g.getStudent().getId().equals(student.getId()))
-                    .map(g -> new ParentDashboardDTO.GradeResponseDTO(
-                        g.getId(),
-                        g.getSubject(),
-                        g.getMarks(),
-                        g.getTeacher() != null && g.getTeacher().getUser() != null ? 
-                            g.getTeacher().getUser().getName() : "Unknown",
-                        student.getUser() != null ? student.getUser().getName() : "Unknown"
-                    )))
+            return gradeRepository.findByParentUserId(userId).stream()
+                .map(g -> new ParentDashboardDTO.GradeResponseDTO(
+                    g.getId(),
+                    g.getSubject(),
+                    g.getMarks(),
+                    g.getTeacher() != null && g.getTeacher().getUser() != null ? 
+                        g.getTeacher().getUser().getName() : "Unknown",
+                    studentName(g.getStudent())
+                ))
                 .collect(Collectors.toList());
         } catch (Exception e) {
             System.out.println("Error in getChildGrades: " + e.getMessage());
@@ -116,41 +109,17 @@ public class ParentService {
 
     public List<ParentDashboardDTO.LeaveRequestResponseDTO> getChildLeaveStatus(Long userId) {
         try {
-            // Find parent by user ID
-            Parent parent = parentRepository.findAll().stream()
-                .filter(p -> p.getUser() != null && p.getUser().getId().equals(userId))
-                .findFirst()
-                .orElse(null);
-            
-            if (parent == null) {
-                System.out.println("Parent not found for userId: " + userId);
-                return List.of();
-            }
-            
-            // Find students that have this parent
-            List<Student> students = studentRepository.findAll().stream()
-                .filter(s -> s.getParent() != null && s.getParent().getId().equals(parent.getId()))
-                .toList();
-                
-            if (students.isEmpty()) {
-                System.out.println("No students found for parent: " + parent.getId());
-                return List.of();
-            }
-            
-            // Get leave requests for all children
-            return students.stream()
-                .flatMap(student -> leaveRequestRepository.findAll().stream()
-                    .filter(l -> l.getStudent() != null && l.getStudent().getId().equals(student.getId()))
-                    .map(l -> new ParentDashboardDTO.LeaveRequestResponseDTO(
-                        l.getId(),
-                        l.getReason(),
-                        l.getFromDate(),
-                        l.getToDate(),
-                        l.getTeacherApproval(),
-                        l.getParentApproval(),
-                        l.getStatus(),
-                        student.getUser() != null ? student.getUser().getName() : "Unknown"
-                    )))
+            return leaveRequestRepository.findByParentUserId(userId).stream()
+                .map(l -> new ParentDashboardDTO.LeaveRequestResponseDTO(
+                    l.getId(),
+                    l.getReason(),
+                    l.getFromDate(),
+                    l.getToDate(),
+                    l.getTeacherApproval(),
+                    l.getParentApproval(),
+                    l.getStatus(),
+                    studentName(l.getStudent())
+                ))
                 .collect(Collectors.toList());
         } catch (Exception e) {
             System.out.println("Error in getChildLeaveStatus: " + e.getMessage());
@@ -159,6 +128,10 @@ public class ParentService {
         }
     }
 
+    private String studentName(Student student) {
+        return student.getUser() != null ? student.getUser().getName() : "Unknown";
+    }
+
     public Map<String, Object> approveLeave(LeaveApprovalDTO dto) {
         try {
             LeaveRequest leave = leaveRequestRepository.findById(dto.getLeaveId()).orElse(null);
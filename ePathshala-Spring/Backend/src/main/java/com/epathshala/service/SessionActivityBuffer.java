@@ -0,0 +1,60 @@
+package com.epathshala.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind last-activity tracking: requests only record a timestamp per session
+ * here, and every {@code session.activity.flush-interval-ms} the latest timestamp of
+ * each touched session is written to the session table in one JDBC batch.
+ */
+@Component
+public class SessionActivityBuffer {
+
+    private static final String UPDATE_ACTIVITY_SQL =
+        "UPDATE session SET last_activity_time = ? WHERE session_id = ? AND is_active = true";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void record(String sessionId) {
+        pending.put(sessionId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${session.activity.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(pending.size());
+        // A session touched again while draining stays pending for the next flush
+        for (String sessionId : pending.keySet()) {
+            LocalDateTime activity = pending.remove(sessionId);
+            if (activity != null) {
+                rows.add(new Object[] {Timestamp.valueOf(activity), sessionId});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_ACTIVITY_SQL, rows);
+        } catch (Exception e) {
+            System.err.println("❌ Failed to flush activity for " + rows.size() + " sessions: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
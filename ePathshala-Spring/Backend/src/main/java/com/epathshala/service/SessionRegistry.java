@@ -0,0 +1,196 @@
+package com.epathshala.service;
+
+import com.epathshala.repository.SessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Active sessions held in memory; the source of truth for session validity and
+ * for the per-user session limit. Each user's sessions sit in a deque ordered by
+ * login time, so enforcing {@code session.max-per-user} only looks at that user's
+ * few sessions, and expiry is driven by a delay queue instead of table scans.
+ * Loaded from the database at startup. Sessions closed here (limit evictions) are
+ * written to the session table asynchronously by a single writer thread.
+ */
+@Component
+public class SessionRegistry {
+
+    private static final String LOGOUT_SESSION_SQL =
+        "UPDATE session SET is_active = false, logout_time = ?, logout_reason = ? WHERE session_id = ? AND is_active = true";
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${session.max-per-user:5}")
+    private int maxSessionsPerUser;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    // userId -> that user's open sessions in login order (oldest first); each deque is changed only inside compute()
+    private final Map<Long, Deque<SessionState>> sessionsByUser = new ConcurrentHashMap<>();
+    private final DelayQueue<SessionState> expiryQueue = new DelayQueue<>();
+
+    private ExecutorService writer;
+
+    @PostConstruct
+    public void init() {
+        writer = Executors.newSingleThreadExecutor();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Object[] row : sessionRepository.findActiveSessionStates(LocalDateTime.now())) {
+            add(new SessionState((String) row[0], (Long) row[1], (LocalDateTime) row[3]));
+        }
+        System.out.println("🔐 Session registry loaded: " + sessions.size() + " active sessions");
+    }
+
+    /**
+     * Add a newly created session. When the user is over the limit, their oldest
+     * sessions are closed here and their rows are updated in the background.
+     */
+    public void register(String sessionId, Long userId, LocalDateTime expiryTime) {
+        List<String> evicted = add(new SessionState(sessionId, userId, expiryTime));
+        if (!evicted.isEmpty()) {
+            persistLogout(evicted, "Max sessions limit reached");
+        }
+    }
+
+    public boolean isValid(String sessionId) {
+        SessionState state = sessions.get(sessionId);
+        return state != null && state.active && !state.isExpired();
+    }
+
+    public void invalidate(String sessionId) {
+        SessionState state = sessions.get(sessionId);
+        if (state != null) {
+            close(state);
+        }
+    }
+
+    public void invalidateUser(Long userId) {
+        Deque<SessionState> userSessions = sessionsByUser.remove(userId);
+        if (userSessions != null) {
+            for (SessionState state : userSessions) {
+                state.active = false;
+                sessions.remove(state.sessionId);
+            }
+        }
+    }
+
+    public void invalidateUsers(Collection<Long> userIds) {
+        userIds.forEach(this::invalidateUser);
+    }
+
+    // Drops sessions whose expiry has passed; closed sessions still in the queue are skipped
+    @Scheduled(fixedDelayString = "${session.registry.expiry-check-ms:10000}")
+    public void expireDue() {
+        SessionState state;
+        while ((state = expiryQueue.poll()) != null) {
+            if (state.active) {
+                close(state);
+            }
+        }
+    }
+
+    private List<String> add(SessionState state) {
+        List<String> evicted = new ArrayList<>();
+        sessions.put(state.sessionId, state);
+        expiryQueue.add(state);
+        sessionsByUser.compute(state.userId, (userId, userSessions) -> {
+            Deque<SessionState> deque = userSessions != null ? userSessions : new ArrayDeque<>();
+            deque.addLast(state);
+            while (deque.size() > maxSessionsPerUser) {
+                SessionState oldest = deque.pollFirst();
+                oldest.active = false;
+                sessions.remove(oldest.sessionId);
+                evicted.add(oldest.sessionId);
+            }
+            return deque;
+        });
+        return evicted;
+    }
+
+    private void close(SessionState state) {
+        state.active = false;
+        sessions.remove(state.sessionId);
+        sessionsByUser.computeIfPresent(state.userId, (userId, deque) -> {
+            deque.remove(state);
+            return deque.isEmpty() ? null : deque;
+        });
+    }
+
+    private void persistLogout(List<String> sessionIds, String reason) {
+        Timestamp logoutTime = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(sessionIds.size());
+        for (String sessionId : sessionIds) {
+            rows.add(new Object[] {logoutTime, reason, sessionId});
+        }
+        writer.submit(() -> {
+            try {
+                jdbcTemplate.batchUpdate(LOGOUT_SESSION_SQL, rows);
+                System.out.println("✅ Closed " + rows.size() + " sessions: " + reason);
+            } catch (Exception e) {
+                System.err.println("❌ Failed to close sessions " + sessionIds + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private static final class SessionState implements Delayed {
+        private final String sessionId;
+        private final Long userId;
+        private final long expiresAtMillis;
+        private volatile boolean active = true;
+
+        private SessionState(String sessionId, Long userId, LocalDateTime expiryTime) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.expiresAtMillis = expiryTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAtMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
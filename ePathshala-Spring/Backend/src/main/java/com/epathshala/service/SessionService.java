@@ -8,6 +8,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
@@ -23,28 +25,20 @@ public class SessionService {
     @Autowired
     private SessionRepository sessionRepository;
     
+    @Autowired
+    private SessionRegistry sessionRegistry;
+    
+    @Autowired
+    private SessionActivityBuffer sessionActivityBuffer;
+    
     @Value("${session.timeout.minutes:30}")
     private int sessionTimeoutMinutes;
     
-    @Value("${session.max-per-user:5}")
-    private int maxSessionsPerUser;
-    
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
+    // The per-user session limit is enforced by SessionRegistry, which closes the oldest session
     @Transactional
     public void createSession(String sessionId, User user, HttpServletRequest request) {
-        // Check if user has too many active sessions
-        List<Session> activeSessions = sessionRepository.findByUserAndIsActiveTrue(user);
-        if (activeSessions.size() >= maxSessionsPerUser) {
-            // Logout oldest session
-            Session oldestSession = activeSessions.stream()
-                .min((s1, s2) -> s1.getLoginTime().compareTo(s2.getLoginTime()))
-                .orElse(null);
-            if (oldestSession != null) {
-                invalidateSession(oldestSession.getSessionId(), "Max sessions limit reached");
-            }
-        }
-        
         // Get client information
         String ipAddress = getClientIpAddress(request);
         String userAgent = request.getHeader("User-Agent");
@@ -52,6 +46,7 @@ public class SessionService {
         // Create new session
         Session session = new Session(sessionId, user, ipAddress, userAgent, sessionTimeoutMinutes);
         sessionRepository.save(session);
+        registerAfterCommit(sessionId, user.getId(), session.getExpiryTime());
         
         System.out.println("✅ Session created: " + sessionId + " for user: " + user.getEmail());
     }
@@ -61,12 +56,28 @@ public class SessionService {
         // Create session without request context (for testing)
         Session session = new Session(sessionId, user, "Unknown", "Unknown", sessionTimeoutMinutes);
         sessionRepository.save(session);
+        registerAfterCommit(sessionId, user.getId(), session.getExpiryTime());
         
         System.out.println("✅ Session created: " + sessionId + " for user: " + user.getEmail());
     }
     
+    // Only a committed session row is registered (registering may close the user's oldest session)
+    private void registerAfterCommit(String sessionId, Long userId, LocalDateTime expiryTime) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sessionRegistry.register(sessionId, userId, expiryTime);
+                }
+            });
+        } else {
+            sessionRegistry.register(sessionId, userId, expiryTime);
+        }
+    }
+    
     @Transactional
     public void invalidateSession(String sessionId, String reason) {
+        sessionRegistry.invalidate(sessionId);
         Optional<Session> sessionOpt = sessionRepository.findBySessionId(sessionId);
         if (sessionOpt.isPresent()) {
             Session session = sessionOpt.get();
@@ -78,14 +89,9 @@ public class SessionService {
         }
     }
     
-    @Transactional
+    // Buffered; written to the session table by SessionActivityBuffer every few seconds
     public void updateSessionActivity(String sessionId) {
-        Optional<Session> sessionOpt = sessionRepository.findBySessionId(sessionId);
-        if (sessionOpt.isPresent()) {
-            Session session = sessionOpt.get();
-            session.updateActivity();
-            sessionRepository.save(session);
-        }
+        sessionActivityBuffer.record(sessionId);
     }
     
     @Transactional(readOnly = true)
@@ -174,41 +180,26 @@ public class SessionService {
     
     @Transactional
     public void invalidateAllUserSessions(Long userId, String reason) {
-        User user = new User();
-        user.setId(userId);
-        List<Session> activeSessions = sessionRepository.findByUserAndIsActiveTrue(user);
-        
-        for (Session session : activeSessions) {
-            session.logout(reason);
-            sessionRepository.save(session);
-        }
+        sessionRegistry.invalidateUser(userId);
+        int invalidated = sessionRepository.invalidateUserSessions(List.of(userId), LocalDateTime.now(), reason);
         
-        System.out.println("✅ Invalidated " + activeSessions.size() + " sessions for user ID: " + userId);
+        System.out.println("✅ Invalidated " + invalidated + " sessions for user ID: " + userId);
     }
     
-    @Transactional
+    // Answered from SessionRegistry without a query
     public boolean isSessionValid(String sessionId) {
-        Optional<Session> sessionOpt = sessionRepository.findBySessionId(sessionId);
-        if (sessionOpt.isPresent()) {
-            Session session = sessionOpt.get();
-            return session.getIsActive() && !session.isExpired();
-        }
-        return false;
+        return sessionRegistry.isValid(sessionId);
     }
     
+    // The registry drops expired sessions as they fall due; this closes their rows with one UPDATE
     @Scheduled(fixedRate = 300000) // Run every 5 minutes
     @Transactional
     public void cleanupExpiredSessions() {
         LocalDateTime now = LocalDateTime.now();
-        List<Session> expiredSessions = sessionRepository.findExpiredSessions(now);
-        
-        for (Session session : expiredSessions) {
-            session.logout("Session expired");
-            sessionRepository.save(session);
-        }
+        int expired = sessionRepository.expireSessions(now, now);
         
-        if (!expiredSessions.isEmpty()) {
-            System.out.println("🧹 Cleaned up " + expiredSessions.size() + " expired sessions");
+        if (expired > 0) {
+            System.out.println("🧹 Cleaned up " + expired + " expired sessions");
         }
     }
     
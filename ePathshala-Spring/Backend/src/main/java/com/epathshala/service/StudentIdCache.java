@@ -0,0 +1,57 @@
+package com.epathshala.service;
+
+import com.epathshala.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU map from User.id to Student.id, shared by the student endpoints
+ * so each request resolves the student without a lookup query.
+ * Misses (users that are not students) are not cached.
+ */
+@Component
+public class StudentIdCache {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Value("${student.id-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private Map<Long, Long> studentIds;
+
+    @PostConstruct
+    public void init() {
+        studentIds = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    // Returns null when the user has no student record
+    public Long getStudentId(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        Long studentId = studentIds.get(userId);
+        if (studentId == null) {
+            studentId = studentRepository.findIdByUserId(userId).orElse(null);
+            if (studentId != null) {
+                studentIds.put(userId, studentId);
+            }
+        }
+        return studentId;
+    }
+
+    public void evict(Long userId) {
+        studentIds.remove(userId);
+    }
+}
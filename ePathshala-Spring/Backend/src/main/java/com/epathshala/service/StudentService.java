@@ -1,23 +1,27 @@
 package com.epathshala.service;
 
-import com.epathshala.entity.Attendance;
 import com.epathshala.repository.AttendanceRepository;
-import com.epathshala.entity.Grade;
+import com.epathshala.repository.AttendanceSummaryRepository;
 import com.epathshala.repository.GradeRepository;
-import com.epathshala.entity.Assignment;
 import com.epathshala.repository.AssignmentRepository;
 import com.epathshala.dto.LeaveRequestDTO;
 import com.epathshala.entity.LeaveRequest;
 import com.epathshala.repository.LeaveRequestRepository;
 import com.epathshala.entity.Student;
 import com.epathshala.repository.StudentRepository;
-import com.epathshala.entity.User;
-import com.epathshala.repository.UserRepository;
 import com.epathshala.dto.StudentDashboardDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +29,8 @@ public class StudentService {
     @Autowired
     private AttendanceRepository attendanceRepository;
     @Autowired
+    private AttendanceSummaryRepository attendanceSummaryRepository;
+    @Autowired
     private GradeRepository gradeRepository;
     @Autowired
     private AssignmentRepository assignmentRepository;
@@ -33,46 +39,86 @@ public class StudentService {
     @Autowired
     private StudentRepository studentRepository;
     @Autowired
-    private UserRepository userRepository;
+    private StudentIdCache studentIdCache;
 
-    private Student findStudentByUserId(Long userId) {
-        try {
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null) {
-                System.out.println("❌ User not found for ID: " + userId);
-                return null;
-            }
-            
-            List<Student> allStudents = studentRepository.findAll();
-            Student student = allStudents.stream()
-                .filter(s -> s.getUser() != null && s.getUser().getId().equals(userId))
-                .findFirst()
-                .orElse(null);
-                
-            if (student == null) {
-                System.out.println("❌ Student not found for User ID: " + userId);
-                return null;
-            }
-            
-            System.out.println("✅ Found student: " + student.getUser().getName() + " for User ID: " + userId);
-            return student;
-        } catch (Exception e) {
-            System.out.println("❌ Error in findStudentByUserId: " + e.getMessage());
-            e.printStackTrace();
+    @Value("${student.dashboard.threads:8}")
+    private int dashboardThreads;
+
+    @Value("${student.dashboard.queue-capacity:200}")
+    private int dashboardQueueCapacity;
+
+    // Bounded pool for the dashboard's section queries; when it is saturated the request thread runs them itself
+    private ThreadPoolExecutor dashboardExecutor;
+
+    @PostConstruct
+    public void init() {
+        dashboardExecutor = new ThreadPoolExecutor(dashboardThreads, dashboardThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(dashboardQueueCapacity), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dashboardExecutor.shutdown();
+    }
+
+    private Long findStudentIdByUserId(Long userId) {
+        Long studentId = studentIdCache.getStudentId(userId);
+        if (studentId == null) {
+            System.out.println("❌ Student not found for User ID: " + userId);
+        }
+        return studentId;
+    }
+
+    // Every dashboard section in one response; the sections are loaded concurrently
+    public StudentDashboardDTO getDashboard(Long userId) {
+        Student student = studentRepository.findByUser_Id(userId).orElse(null);
+        if (student == null) {
+            System.out.println("❌ Student not found for User ID: " + userId);
             return null;
         }
+        Long studentId = student.getId();
+
+        CompletableFuture<StudentDashboardDTO.AttendanceSummaryDTO> attendanceSummary =
+                CompletableFuture.supplyAsync(() -> getAttendanceSummary(studentId), dashboardExecutor);
+        CompletableFuture<List<StudentDashboardDTO.GradeResponseDTO>> grades =
+                CompletableFuture.supplyAsync(() -> getGrades(userId), dashboardExecutor);
+        CompletableFuture<List<StudentDashboardDTO.AssignmentResponseDTO>> assignments =
+                CompletableFuture.supplyAsync(() -> getAssignmentsByClass(student.getStudentClass()), dashboardExecutor);
+        CompletableFuture<List<StudentDashboardDTO.LeaveRequestResponseDTO>> leaveRequests =
+                CompletableFuture.supplyAsync(() -> getLeaveStatus(userId), dashboardExecutor);
+
+        StudentDashboardDTO dashboard = new StudentDashboardDTO();
+        dashboard.setStudent(new StudentDashboardDTO.StudentDetailsDTO(
+            studentId,
+            student.getUser().getName(),
+            student.getUser().getEmail(),
+            student.getStudentClass(),
+            userId
+        ));
+        dashboard.setAttendanceSummary(attendanceSummary.join());
+        dashboard.setGrades(grades.join());
+        dashboard.setAssignments(assignments.join());
+        dashboard.setLeaveRequests(leaveRequests.join());
+        return dashboard;
+    }
+
+    // Read from the monthly attendance rollup instead of the raw attendance rows
+    public StudentDashboardDTO.AttendanceSummaryDTO getAttendanceSummary(Long studentId) {
+        List<Object[]> rows = attendanceSummaryRepository.summarizeByStudentId(studentId);
+        long total = rows.isEmpty() ? 0 : ((Number) rows.get(0)[0]).longValue();
+        long present = rows.isEmpty() ? 0 : ((Number) rows.get(0)[1]).longValue();
+        double percentage = total > 0 ? Math.round(present * 10000.0 / total) / 100.0 : 0.0;
+        return new StudentDashboardDTO.AttendanceSummaryDTO(total, present, total - present, percentage);
     }
 
     public List<StudentDashboardDTO.AttendanceResponseDTO> getAttendance(Long userId) {
         try {
-            Student student = findStudentByUserId(userId);
-            if (student == null) {
+            Long studentId = findStudentIdByUserId(userId);
+            if (studentId == null) {
                 return List.of();
             }
             
-            List<Attendance> allAttendance = attendanceRepository.findAll();
-            List<StudentDashboardDTO.AttendanceResponseDTO> studentAttendance = allAttendance.stream()
-                .filter(a -> a.getStudent() != null && a.getStudent().getId().equals(student.getId()))
+            List<StudentDashboardDTO.AttendanceResponseDTO> studentAttendance = attendanceRepository.findByStudentIdWithTeacher(studentId).stream()
                 .map(a -> new StudentDashboardDTO.AttendanceResponseDTO(
                     a.getId(),
                     a.getDate(),
@@ -81,7 +127,7 @@ public class StudentService {
                 ))
                 .collect(Collectors.toList());
             
-            System.out.println("✅ Found " + studentAttendance.size() + " attendance records for student " + student.getId());
+            System.out.println("✅ Found " + studentAttendance.size() + " attendance records for student " + studentId);
             return studentAttendance;
         } catch (Exception e) {
             System.out.println("❌ Error in getAttendance: " + e.getMessage());
@@ -92,14 +138,12 @@ public class StudentService {
 
     public List<StudentDashboardDTO.GradeResponseDTO> getGrades(Long userId) {
         try {
-            Student student = findStudentByUserId(userId);
-            if (student == null) {
+            Long studentId = findStudentIdByUserId(userId);
+            if (studentId == null) {
                 return List.of();
             }
             
-            List<Grade> allGrades = gradeRepository.findAll();
-            List<StudentDashboardDTO.GradeResponseDTO> studentGrades = allGrades.stream()
-                .filter(g -> g.getStudent() != null && g.getStudent().getId().equals(student.getId()))
+            List<StudentDashboardDTO.GradeResponseDTO> studentGrades = gradeRepository.findByStudentIdWithTeacher(studentId).stream()
                 .map(g -> new StudentDashboardDTO.GradeResponseDTO(
                     g.getId(),
                     g.getSubject(),
@@ -108,7 +152,7 @@ public class StudentService {
                 ))
                 .collect(Collectors.toList());
             
-            System.out.println("✅ Found " + studentGrades.size() + " grade records for student " + student.getId());
+            System.out.println("✅ Found " + studentGrades.size() + " grade records for student " + studentId);
             return studentGrades;
         } catch (Exception e) {
             System.out.println("❌ Error in getGrades: " + e.getMessage());
@@ -119,9 +163,11 @@ public class StudentService {
 
     public List<StudentDashboardDTO.AssignmentResponseDTO> getAssignmentsByClass(String className) {
         try {
-            List<Assignment> allAssignments = assignmentRepository.findAll();
-            List<StudentDashboardDTO.AssignmentResponseDTO> classAssignments = allAssignments.stream()
-                .filter(a -> className != null && className.equals(a.getClassName()))
+            if (className == null) {
+                return List.of();
+            }
+            
+            List<StudentDashboardDTO.AssignmentResponseDTO> classAssignments = assignmentRepository.findByClassNameOrderByCreatedAtDesc(className).stream()
                 .map(a -> new StudentDashboardDTO.AssignmentResponseDTO(
                     a.getId(),
                     a.getTitle(),
@@ -142,13 +188,13 @@ public class StudentService {
 
     public Map<String, Object> submitLeave(LeaveRequestDTO dto) {
         try {
-            Student student = findStudentByUserId(dto.getStudentId());
-            if (student == null) {
+            Long studentId = findStudentIdByUserId(dto.getStudentId());
+            if (studentId == null) {
                 return Map.of("error", "Student not found");
             }
             
         LeaveRequest leave = new LeaveRequest();
-            leave.setStudent(student);
+            leave.setStudent(studentRepository.getReferenceById(studentId));
         leave.setReason(dto.getReason());
         leave.setFromDate(dto.getFromDate());
         leave.setToDate(dto.getToDate());
@@ -166,14 +212,12 @@ public class StudentService {
 
     public List<StudentDashboardDTO.LeaveRequestResponseDTO> getLeaveStatus(Long userId) {
         try {
-            Student student = findStudentByUserId(userId);
-            if (student == null) {
+            Long studentId = findStudentIdByUserId(userId);
+            if (studentId == null) {
                 return List.of();
             }
             
-            List<LeaveRequest> allLeaves = leaveRequestRepository.findAll();
-            List<StudentDashboardDTO.LeaveRequestResponseDTO> studentLeaves = allLeaves.stream()
-                .filter(l -> l.getStudent() != null && l.getStudent().getId().equals(student.getId()))
+            List<StudentDashboardDTO.LeaveRequestResponseDTO> studentLeaves = leaveRequestRepository.findByStudentIdOrderByIdAsc(studentId).stream()
                 .map(l -> new StudentDashboardDTO.LeaveRequestResponseDTO(
                     l.getId(),
                     l.getReason(),
@@ -185,7 +229,7 @@ public class StudentService {
                 ))
                 .collect(Collectors.toList());
             
-            System.out.println("✅ Found " + studentLeaves.size() + " leave records for student " + student.getId());
+            System.out.println("✅ Found " + studentLeaves.size() + " leave records for student " + studentId);
             return studentLeaves;
         } catch (Exception e) {
             System.out.println("❌ Error in getLeaveStatus: " + e.getMessage());
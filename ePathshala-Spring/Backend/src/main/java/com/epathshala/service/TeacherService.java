@@ -17,9 +17,18 @@ import com.epathshala.repository.AssignmentRepository;
 import com.epathshala.dto.LeaveApprovalDTO;
 import com.epathshala.entity.LeaveRequest;
 import com.epathshala.repository.LeaveRequestRepository;
+import com.epathshala.dto.BulkAttendanceDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Date;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -40,6 +49,17 @@ public class TeacherService {
     private AssignmentRepository assignmentRepository;
     @Autowired
     private LeaveRequestRepository leaveRequestRepository;
+    @Autowired
+    private ClassRosterIndex classRosterIndex;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AttendanceSummaryService attendanceSummaryService;
+
+    // rewriteBatchedStatements turns the batch into multi-row INSERTs
+    private static final String UPSERT_ATTENDANCE_SQL =
+        "INSERT INTO attendance (student_id, date, status, marked_by_id) VALUES (?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE status = VALUES(status), marked_by_id = VALUES(marked_by_id)";
 
     private void notifyAssignment(Assignment assignment) {
         try {
@@ -54,36 +74,124 @@ public class TeacherService {
         } catch (Exception ignored) {}
     }
 
+    // Teacher record of the authenticated user (the JWT principal is the user's email)
+    public Long getCurrentTeacherId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        return teacherRepository.findIdByUserEmail(authentication.getName()).orElse(null);
+    }
+
+    @Transactional
     public Map<String, Object> markAttendance(AttendanceDTO dto) {
         Student student = studentRepository.findById(dto.getStudentId()).orElse(null);
         if (student == null) {
             return Map.of("error", "Student not found");
         }
-        // For demo, assume teacher is the first in the repo (in real app, get from auth context)
-        Teacher teacher = teacherRepository.findAll().stream().findFirst().orElse(null);
-        if (teacher == null) {
+        Long teacherId = getCurrentTeacherId();
+        if (teacherId == null) {
             return Map.of("error", "Teacher not found");
         }
-        Attendance attendance = new Attendance();
+        // One row per student and day; marking again updates it. The student row lock serializes
+        // concurrent marks, so the rollup delta is taken from the status actually replaced
+        studentRepository.lockClassesByIds(List.of(student.getId()));
+        LocalDate date = dto.getDate() != null ? dto.getDate() : LocalDate.now();
+        Attendance attendance = attendanceRepository.findByStudentIdAndDate(student.getId(), date).orElseGet(Attendance::new);
+        boolean existed = attendance.getId() != null;
+        String previousStatus = attendance.getStatus();
         attendance.setStudent(student);
-        attendance.setDate(dto.getDate() != null ? dto.getDate() : LocalDate.now());
+        attendance.setDate(date);
         attendance.setStatus(dto.getStatus());
-        attendance.setMarkedBy(teacher);
+        attendance.setMarkedBy(teacherRepository.getReferenceById(teacherId));
         attendanceRepository.save(attendance);
+        attendanceSummaryService.recordMark(date, student.getId(), student.getStudentClass(), existed, previousStatus, dto.getStatus());
         return Map.of("attendanceId", attendance.getId());
     }
 
+    // A whole register in one statement batch: students are validated with one query and rows are upserted on (student, date)
+    @Transactional
+    public Map<String, Object> markAttendanceBulk(BulkAttendanceDTO dto) {
+        Long teacherId = getCurrentTeacherId();
+        if (teacherId == null) {
+            return Map.of("error", "Teacher not found");
+        }
+        if (dto.getEntries() == null || dto.getEntries().isEmpty()) {
+            return Map.of("error", "No attendance entries");
+        }
+        LocalDate date = dto.getDate() != null ? dto.getDate() : LocalDate.now();
+
+        List<Map<String, Object>> errors = new ArrayList<>();
+        // A student listed twice keeps the last status
+        Map<Long, String> statuses = new LinkedHashMap<>();
+        for (BulkAttendanceDTO.Entry entry : dto.getEntries()) {
+            String status = normalizeAttendanceStatus(entry.getStatus());
+            if (entry.getStudentId() == null) {
+                errors.add(attendanceError(null, "Student id is required"));
+            } else if (status == null) {
+                errors.add(attendanceError(entry.getStudentId(), "Status must be Present or Absent"));
+            } else {
+                statuses.put(entry.getStudentId(), status);
+            }
+        }
+
+        Map<Long, String> studentClasses = new HashMap<>();
+        if (!statuses.isEmpty()) {
+            for (Object[] row : studentRepository.lockClassesByIds(statuses.keySet())) {
+                studentClasses.put(((Number) row[0]).longValue(), (String) row[1]);
+            }
+        }
+
+        Date sqlDate = Date.valueOf(date);
+        List<Object[]> rows = new ArrayList<>(statuses.size());
+        Map<Long, String> marked = new HashMap<>();
+        for (Map.Entry<Long, String> entry : statuses.entrySet()) {
+            Long studentId = entry.getKey();
+            if (!studentClasses.containsKey(studentId)) {
+                errors.add(attendanceError(studentId, "Student not found"));
+            } else if (dto.getClassName() != null && !dto.getClassName().equals(studentClasses.get(studentId))) {
+                errors.add(attendanceError(studentId, "Student is not in class " + dto.getClassName()));
+            } else {
+                rows.add(new Object[] {studentId, sqlDate, entry.getValue(), teacherId});
+                marked.put(studentId, entry.getValue());
+            }
+        }
+        if (!rows.isEmpty()) {
+            Map<Long, String> previousStatuses = new HashMap<>();
+            for (Object[] row : attendanceRepository.findStatusesByDate(date, marked.keySet())) {
+                previousStatuses.put(((Number) row[0]).longValue(), (String) row[1]);
+            }
+            jdbcTemplate.batchUpdate(UPSERT_ATTENDANCE_SQL, rows);
+            attendanceSummaryService.recordMarks(date, studentClasses, previousStatuses, marked);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("date", date);
+        result.put("marked", rows.size());
+        result.put("failed", errors.size());
+        result.put("errors", errors);
+        return result;
+    }
+
+    private String normalizeAttendanceStatus(String status) {
+        if ("present".equalsIgnoreCase(status)) {
+            return "Present";
+        } else if ("absent".equalsIgnoreCase(status)) {
+            return "Absent";
+        }
+        return null;
+    }
+
+    private Map<String, Object> attendanceError(Long studentId, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("studentId", studentId);
+        error.put("message", message);
+        return error;
+    }
+
     public List<TeacherDashboardDTO.StudentResponseDTO> getStudentsByClass(String className) {
         try {
-            return studentRepository.findAll().stream()
-                .filter(s -> className != null && className.equals(s.getStudentClass()))
-                .map(student -> new TeacherDashboardDTO.StudentResponseDTO(
-                    student.getId(),
-                    student.getUser() != null ? student.getUser().getName() : "Unknown",
-                    student.getUser() != null ? student.getUser().getEmail() : "unknown@email.com",
-                    student.getStudentClass()
-                ))
-                .collect(Collectors.toList());
+            return classRosterIndex.getRoster(className);
         } catch (Exception e) {
             System.out.println("Error in getStudentsByClass: " + e.getMessage());
             e.printStackTrace();
@@ -93,20 +201,16 @@ public class TeacherService {
 
     public List<TeacherDashboardDTO.AttendanceResponseDTO> getAttendanceByClass(String className) {
         try {
-            // Fetch all students in the class
-            List<Student> students = studentRepository.findAll();
-            List<Long> studentIds = students.stream()
-                .filter(s -> className != null && className.equals(s.getStudentClass()))
-                .map(Student::getId)
-                .toList();
-            // Fetch attendance for these students
-            List<Attendance> attendanceList = attendanceRepository.findAll();
-            return attendanceList.stream()
-                .filter(a -> a.getStudent() != null && studentIds.contains(a.getStudent().getId()))
+            if (className == null) {
+                return List.of();
+            }
+            // Names come from the class roster, so the query never touches users
+            Map<Long, String> names = classRosterIndex.getStudentNames(className);
+            return attendanceRepository.findByStudentClass(className).stream()
                 .map(attendance -> new TeacherDashboardDTO.AttendanceResponseDTO(
                     attendance.getId(),
                     attendance.getStudent().getId(),
-                    attendance.getStudent().getUser() != null ? attendance.getStudent().getUser().getName() : "Unknown",
+                    names.getOrDefault(attendance.getStudent().getId(), "Unknown"),
                     attendance.getDate(),
                     attendance.getStatus()
                 ))
@@ -123,34 +227,30 @@ public class TeacherService {
         if (student == null) {
             return Map.of("error", "Student not found");
         }
-        // For demo, assume teacher is the first in the repo (in real app, get from auth context)
-        Teacher teacher = teacherRepository.findAll().stream().findFirst().orElse(null);
-        if (teacher == null) {
+        Long teacherId = getCurrentTeacherId();
+        if (teacherId == null) {
             return Map.of("error", "Teacher not found");
         }
         Grade grade = new Grade();
         grade.setStudent(student);
         grade.setSubject(dto.getSubject());
         grade.setMarks(dto.getMarks());
-        grade.setTeacher(teacher);
+        grade.setTeacher(teacherRepository.getReferenceById(teacherId));
         gradeRepository.save(grade);
         return Map.of("gradeId", grade.getId());
     }
 
     public List<TeacherDashboardDTO.GradeResponseDTO> getGradesByClass(String className) {
         try {
-            List<Student> students = studentRepository.findAll();
-            List<Long> studentIds = students.stream()
-                .filter(s -> className != null && className.equals(s.getStudentClass()))
-                .map(Student::getId)
-                .toList();
-            List<Grade> grades = gradeRepository.findAll();
-            return grades.stream()
-                .filter(g -> g.getStudent() != null && studentIds.contains(g.getStudent().getId()))
+            if (className == null) {
+                return List.of();
+            }
+            Map<Long, String> names = classRosterIndex.getStudentNames(className);
+            return gradeRepository.findByStudentClass(className).stream()
                 .map(grade -> new TeacherDashboardDTO.GradeResponseDTO(
                     grade.getId(),
                     grade.getStudent().getId(),
-                    grade.getStudent().getUser() != null ? grade.getStudent().getUser().getName() : "Unknown",
+                    names.getOrDefault(grade.getStudent().getId(), "Unknown"),
                     grade.getSubject(),
                     grade.getMarks(),
                     null // remarks field not in entity
@@ -207,8 +307,10 @@ public class TeacherService {
 
     public List<TeacherDashboardDTO.AssignmentResponseDTO> getAssignmentsByClass(String className) {
         try {
-            return assignmentRepository.findAll().stream()
-                .filter(a -> className != null && className.equals(a.getClassName()))
+            if (className == null) {
+                return List.of();
+            }
+            return assignmentRepository.findByClassNameOrderByCreatedAtDesc(className).stream()
                 .map(assignment -> new TeacherDashboardDTO.AssignmentResponseDTO(
                     assignment.getId(),
                     assignment.getTitle(),
@@ -227,17 +329,15 @@ public class TeacherService {
 
     public List<TeacherDashboardDTO.LeaveRequestResponseDTO> getLeavesByClass(String className) {
         try {
-            List<Student> students = studentRepository.findAll();
-            List<Long> studentIds = students.stream()
-                .filter(s -> className != null && className.equals(s.getStudentClass()))
-                .map(Student::getId)
-                .toList();
-            return leaveRequestRepository.findAll().stream()
-                .filter(l -> l.getStudent() != null && studentIds.contains(l.getStudent().getId()))
+            if (className == null) {
+                return List.of();
+            }
+            Map<Long, String> names = classRosterIndex.getStudentNames(className);
+            return leaveRequestRepository.findByStudentClass(className).stream()
                 .map(leave -> new TeacherDashboardDTO.LeaveRequestResponseDTO(
                     leave.getId(),
                     leave.getStudent().getId(),
-                    leave.getStudent().getUser() != null ? leave.getStudent().getUser().getName() : "Unknown",
+                    names.getOrDefault(leave.getStudent().getId(), "Unknown"),
                     leave.getReason(),
                     leave.getFromDate(),
                     leave.getToDate(),
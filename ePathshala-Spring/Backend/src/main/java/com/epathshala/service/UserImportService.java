@@ -0,0 +1,504 @@
+package com.epathshala.service;
+
+import com.epathshala.repository.ParentRepository;
+import com.epathshala.repository.UserRepository;
+import com.epathshala.util.CsvReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bulk account provisioning from a roster CSV (header row with role, name, email,
+ * password and, depending on the role, studentClass, parentEmail, subject, assignedClass).
+ *
+ * The upload is read and validated as it streams in; the accounts are then created
+ * by a background job whose progress is served by {@link #getJob(String)}. The job
+ * hashes passwords on a bounded pool and inserts users and their role rows in JDBC
+ * batches of {@code admin.user-import.batch-size}, one transaction per batch.
+ * Parents are created before students, so a student can name a parent from the same
+ * file (or an existing one) in parentEmail and is linked through an in-memory map.
+ */
+@Service
+public class UserImportService {
+
+    public static final String[] CSV_COLUMNS = {
+        "role", "name", "email", "password", "studentClass", "parentEmail", "subject", "assignedClass"
+    };
+
+    private static final int MAX_REPORTED_ERRORS = 500;
+
+    // Role rows are created in this order so parents exist before their children
+    private static final List<String> ROLE_ORDER = List.of("PARENT", "TEACHER", "STUDENT");
+
+    private static final String INSERT_USER_SQL =
+        "INSERT INTO user (name, email, password, role, account_number, active) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PARENT_SQL = "INSERT INTO parent (user_id) VALUES (?)";
+    private static final String INSERT_TEACHER_SQL = "INSERT INTO teacher (user_id, subject, assigned_class) VALUES (?, ?, ?)";
+    private static final String INSERT_STUDENT_SQL = "INSERT INTO student (user_id, student_class, parent_id) VALUES (?, ?, ?)";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClassRosterIndex classRosterIndex;
+
+    @Value("${admin.user-import.batch-size:200}")
+    private int batchSize;
+
+    @Value("${admin.user-import.hash-threads:4}")
+    private int hashThreads;
+
+    @Value("${admin.user-import.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+    // Imports run one at a time; password hashing inside a job is spread over hashExecutor
+    private ExecutorService jobExecutor;
+    private ExecutorService hashExecutor;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jobExecutor = Executors.newSingleThreadExecutor();
+        hashExecutor = Executors.newFixedThreadPool(hashThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        hashExecutor.shutdownNow();
+    }
+
+    /**
+     * Validate a roster CSV and queue its accounts for creation.
+     * @return the job status, including the rows rejected while reading
+     */
+    public Map<String, Object> startImport(InputStream inputStream) throws IOException {
+        evictFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString());
+        List<Row> rows = readRows(inputStream, job);
+        rejectExistingAccounts(rows, job);
+        rows.sort(Comparator.comparingInt(row -> ROLE_ORDER.indexOf(row.role)));
+        jobs.put(job.id, job);
+
+        jobExecutor.submit(() -> runImport(job, rows));
+        System.out.println("📥 User import " + job.id + " queued: " + rows.size() + " accounts (" + job.failed + " rows rejected)");
+        return job.toMap();
+    }
+
+    public Map<String, Object> getJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        return job != null ? job.toMap() : null;
+    }
+
+    private List<Row> readRows(InputStream inputStream, ImportJob job) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            throw new RuntimeException("CSV file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(), i);
+        }
+        int[] positions = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            Integer position = columns.get(CSV_COLUMNS[i].toLowerCase());
+            // Only the first four columns are needed by every role
+            if (position == null && i < 4) {
+                throw new RuntimeException("Missing CSV column: " + CSV_COLUMNS[i]);
+            }
+            positions[i] = position != null ? position : -1;
+        }
+
+        List<Row> rows = new ArrayList<>();
+        Set<String> emails = new HashSet<>();
+        while (true) {
+            long lineNumber = csv.getLineNumber() + 1;
+            List<String> record = csv.readRecord();
+            if (record == null) {
+                break;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            job.totalRows++;
+
+            String[] values = new String[CSV_COLUMNS.length];
+            for (int i = 0; i < positions.length; i++) {
+                String value = positions[i] >= 0 && positions[i] < record.size() ? record.get(positions[i]).trim() : null;
+                values[i] = value == null || value.isEmpty() ? null : value;
+            }
+            Row row = new Row(lineNumber, values);
+            String error = validate(row);
+            if (error == null && !emails.add(row.email.toLowerCase())) {
+                error = "Duplicate email in file: " + row.email;
+            }
+            if (error != null) {
+                job.addError(lineNumber, error);
+            } else {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private String validate(Row row) {
+        if (row.role == null || !ROLE_ORDER.contains(row.role)) {
+            return "Role must be STUDENT, TEACHER or PARENT";
+        }
+        if (row.name == null) {
+            return "Name is required";
+        }
+        if (row.email == null || !row.email.contains("@")) {
+            return "A valid email is required";
+        }
+        if (row.password == null) {
+            return "Password is required";
+        }
+        if ("STUDENT".equals(row.role) && row.studentClass == null) {
+            return "studentClass is required for students";
+        }
+        return null;
+    }
+
+    // Drops rows whose email is taken and resolves parentEmail against the file and existing parents
+    private void rejectExistingAccounts(List<Row> rows, ImportJob job) {
+        Set<String> taken = new HashSet<>();
+        Map<String, Long> existingParents = new HashMap<>();
+        Set<String> parentEmails = new HashSet<>();
+        for (Row row : rows) {
+            if (row.parentEmail != null) {
+                parentEmails.add(row.parentEmail.toLowerCase());
+            }
+        }
+        List<String> emails = new ArrayList<>(rows.size());
+        rows.forEach(row -> emails.add(row.email));
+        for (int from = 0; from < emails.size(); from += batchSize) {
+            userRepository.findExistingEmails(emails.subList(from, Math.min(from + batchSize, emails.size())))
+                .forEach(email -> taken.add(email.toLowerCase()));
+        }
+        List<String> parentLookups = new ArrayList<>(parentEmails);
+        for (int from = 0; from < parentLookups.size(); from += batchSize) {
+            for (Object[] parent : parentRepository.findIdsByUserEmails(parentLookups.subList(from, Math.min(from + batchSize, parentLookups.size())))) {
+                existingParents.put(((String) parent[0]).toLowerCase(), (Long) parent[1]);
+            }
+        }
+
+        Set<String> fileParents = new HashSet<>();
+        rows.removeIf(row -> {
+            if (taken.contains(row.email.toLowerCase())) {
+                job.addError(row.lineNumber, "Email already registered: " + row.email);
+                return true;
+            }
+            if ("PARENT".equals(row.role)) {
+                fileParents.add(row.email.toLowerCase());
+            }
+            return false;
+        });
+        rows.removeIf(row -> {
+            if (!"STUDENT".equals(row.role) || row.parentEmail == null) {
+                return false;
+            }
+            String key = row.parentEmail.toLowerCase();
+            if (existingParents.containsKey(key)) {
+                row.existingParentId = existingParents.get(key);
+            } else if (!fileParents.contains(key)) {
+                job.addError(row.lineNumber, "Parent not found: " + row.parentEmail);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void runImport(ImportJob job, List<Row> rows) {
+        job.status = "RUNNING";
+        Map<String, Long> createdParents = new HashMap<>();
+        try {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                List<Row> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                hashPasswords(batch);
+                insertBatch(batch, job, createdParents);
+                for (Row row : batch) {
+                    if (row.roleId != null && "STUDENT".equals(row.role)) {
+                        classRosterIndex.addStudent(row.roleId, row.name, row.email, row.studentClass);
+                    }
+                }
+                job.processed += batch.size();
+            }
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            job.status = "FAILED";
+            job.message = e.getMessage();
+            System.err.println("❌ User import " + job.id + " failed: " + e.getMessage());
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+        System.out.println("✅ User import " + job.id + " finished: " + job.created + " created, " + job.failed + " rejected");
+    }
+
+    // BCrypt is deliberately slow, so the batch is hashed in parallel and plain passwords are dropped
+    private void hashPasswords(List<Row> batch) {
+        List<CompletableFuture<Void>> hashes = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            hashes.add(CompletableFuture.runAsync(() -> {
+                row.passwordHash = passwordEncoder.encode(row.password);
+                row.password = null;
+            }, hashExecutor));
+        }
+        CompletableFuture.allOf(hashes.toArray(new CompletableFuture[0])).join();
+    }
+
+    // createdParents (parent email -> Parent.id) only receives parents whose transaction committed
+    private void insertBatch(List<Row> batch, ImportJob job, Map<String, Long> createdParents) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertRows(batch, createdParents));
+            job.created += batch.size();
+            batch.forEach(row -> rememberParent(row, createdParents));
+        } catch (Exception e) {
+            batch.forEach(row -> row.roleId = null);
+            // Retry the batch row by row so one bad row does not reject the rest
+            for (Row row : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertRows(List.of(row), createdParents));
+                    job.created++;
+                    rememberParent(row, createdParents);
+                } catch (Exception rowError) {
+                    row.roleId = null;
+                    Throwable cause = rowError;
+                    while (cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    job.addError(row.lineNumber, cause.getMessage());
+                }
+            }
+        }
+    }
+
+    private void rememberParent(Row row, Map<String, Long> createdParents) {
+        if ("PARENT".equals(row.role) && row.roleId != null) {
+            createdParents.put(row.email.toLowerCase(), row.roleId);
+        }
+    }
+
+    // Users first, then each role's rows (parents before students), every insert as one JDBC batch
+    private void insertRows(List<Row> rows, Map<String, Long> createdParents) {
+        List<Long> userIds = insertWithKeys(INSERT_USER_SQL, rows, (statement, row) -> {
+            statement.setString(1, row.name);
+            statement.setString(2, row.email);
+            statement.setString(3, row.passwordHash);
+            statement.setString(4, row.role);
+            statement.setString(5, UUID.randomUUID().toString());
+            statement.setBoolean(6, true);
+        });
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).userId = userIds.get(i);
+        }
+
+        Map<String, List<Row>> byRole = new LinkedHashMap<>();
+        for (Row row : rows) {
+            byRole.computeIfAbsent(row.role, role -> new ArrayList<>()).add(row);
+        }
+        for (Map.Entry<String, List<Row>> entry : byRole.entrySet()) {
+            List<Row> roleRows = entry.getValue();
+            List<Long> roleIds;
+            switch (entry.getKey()) {
+                case "PARENT":
+                    roleIds = insertWithKeys(INSERT_PARENT_SQL, roleRows, (statement, row) -> statement.setLong(1, row.userId));
+                    break;
+                case "TEACHER":
+                    roleIds = insertWithKeys(INSERT_TEACHER_SQL, roleRows, (statement, row) -> {
+                        statement.setLong(1, row.userId);
+                        statement.setString(2, row.subject);
+                        statement.setString(3, row.assignedClass);
+                    });
+                    break;
+                default:
+                    resolveParents(roleRows, rows, createdParents);
+                    roleIds = insertWithKeys(INSERT_STUDENT_SQL, roleRows, (statement, row) -> {
+                        statement.setLong(1, row.userId);
+                        statement.setString(2, row.studentClass);
+                        if (row.parentId != null) {
+                            statement.setLong(3, row.parentId);
+                        } else {
+                            statement.setNull(3, Types.BIGINT);
+                        }
+                    });
+                    break;
+            }
+            for (int i = 0; i < roleRows.size(); i++) {
+                roleRows.get(i).roleId = roleIds.get(i);
+            }
+        }
+    }
+
+    // Students naming a parent from the file link to it by email, whether created in this call or earlier.
+    // Resolved afresh on every attempt: an id from a rolled-back batch must not survive into the retry
+    private void resolveParents(List<Row> students, List<Row> rows, Map<String, Long> createdParents) {
+        Map<String, Long> parents = new HashMap<>(createdParents);
+        for (Row row : rows) {
+            if ("PARENT".equals(row.role) && row.roleId != null) {
+                parents.put(row.email.toLowerCase(), row.roleId);
+            }
+        }
+        for (Row student : students) {
+            student.parentId = student.existingParentId;
+            if (student.parentId == null && student.parentEmail != null) {
+                student.parentId = parents.get(student.parentEmail.toLowerCase());
+                if (student.parentId == null) {
+                    throw new RuntimeException("Parent was not created: " + student.parentEmail);
+                }
+            }
+        }
+    }
+
+    private List<Long> insertWithKeys(String sql, List<Row> rows, RowBinder binder) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Row row : rows) {
+                    binder.bind(statement, row);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                List<Long> keys = new ArrayList<>(rows.size());
+                try (ResultSet generated = statement.getGeneratedKeys()) {
+                    while (generated.next()) {
+                        keys.add(generated.getLong(1));
+                    }
+                }
+                if (keys.size() != rows.size()) {
+                    throw new IllegalStateException("Expected " + rows.size() + " generated keys, got " + keys.size());
+                }
+                return keys;
+            }
+        });
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private interface RowBinder {
+        void bind(PreparedStatement statement, Row row) throws java.sql.SQLException;
+    }
+
+    private static final class Row {
+        private final long lineNumber;
+        private final String role;
+        private final String name;
+        private final String email;
+        private final String studentClass;
+        private final String parentEmail;
+        private final String subject;
+        private final String assignedClass;
+        private String password;
+        private String passwordHash;
+        // Parent that existed before the import; parentId is what the current insert attempt links to
+        private Long existingParentId;
+        private Long parentId;
+        private Long userId;
+        private Long roleId;
+
+        private Row(long lineNumber, String[] values) {
+            this.lineNumber = lineNumber;
+            this.role = values[0] != null ? values[0].toUpperCase() : null;
+            this.name = values[1];
+            this.email = values[2];
+            this.password = values[3];
+            this.studentClass = values[4];
+            this.parentEmail = values[5];
+            this.subject = values[6];
+            this.assignedClass = values[7];
+        }
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+        private volatile String status = "QUEUED";
+        private volatile String message;
+        private volatile LocalDateTime finishedAt;
+        private volatile long totalRows;
+        private volatile long processed;
+        private volatile long created;
+        private volatile long failed;
+
+        private ImportJob(String id) {
+            this.id = id;
+        }
+
+        private synchronized void addError(long lineNumber, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("line", lineNumber);
+                error.put("message", message);
+                errors.add(error);
+            }
+        }
+
+        private synchronized Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("jobId", id);
+            result.put("status", status);
+            result.put("message", message);
+            result.put("totalRows", totalRows);
+            result.put("processed", processed);
+            result.put("created", created);
+            result.put("failed", failed);
+            result.put("errors", new ArrayList<>(errors));
+            result.put("errorsTruncated", failed > errors.size());
+            result.put("startedAt", startedAt);
+            result.put("finishedAt", finishedAt);
+            return result;
+        }
+    }
+}